@@ -0,0 +1,133 @@
+package com.example;
+
+import com.example.util.History;
+
+import javafx.application.Application;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Точка входа JavaFX‑калькулятора.
+ * <p>
+ * Создаёт основную сцену, подключает таблицу стилей и предоставляет вспомогательные
+ * методы для загрузки и переключения FXML‑разметок.
+ * </p>
+ * <p>
+ * История вычислений хранится в {@code ~/.calculator/history.log}; путь
+ * можно переопределить системным свойством {@code com.example.history.file}.
+ * </p>
+ */
+public class App extends Application {
+
+    private static final System.Logger LOGGER = System.getLogger(App.class.getName());
+
+    private static Scene scene;
+    private static History history;
+
+    @Override
+    public void start(Stage stage) throws IOException {
+        scene = new Scene(loadFXML("primary"), 380, 620);
+        scene.getStylesheets().add(
+                App.class.getResource("style.css").toExternalForm());
+        stage.setTitle("FX Calc");
+        stage.setResizable(false);
+        stage.setScene(scene);
+        stage.show();
+    }
+
+    @Override
+    public void stop() throws IOException {
+        if (history != null) {
+            history.close();
+        }
+    }
+
+    /**
+     * Возвращает общую для всех окон историю вычислений, открывая журнал
+     * при первом обращении.
+     * <p>
+     * Каждая запись сразу пишется в файл, но без {@code fsync}: после
+     * падения приложения история сохраняется, а поток интерфейса не ждёт
+     * диска. Если журнал недоступен (например, занят другим экземпляром
+     * калькулятора), история ведётся только в памяти.
+     * </p>
+     *
+     * @return история вычислений
+     */
+    static History history() {
+        if (history == null) {
+            Path file = Path.of(System.getProperty("com.example.history.file",
+                    Path.of(System.getProperty("user.home"), ".calculator", "history.log").toString()));
+            try {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                history = History.open(file, History.Sync.NONE, 1);
+            } catch (IOException e) {
+                System.err.println("История не будет сохранена: " + e.getMessage());
+                history = new History();
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Переводит историю в память после сбоя журнала.
+     * <p>
+     * Вызывается, когда запись не удалось добавить в журнал: диск заполнен,
+     * файл недоступен или журнал достиг 2 ГБ. Журнал закрывается, а
+     * дальнейшие записи этого сеанса хранятся только в памяти, чтобы сбой
+     * не мешал следующим вычислениям. Записанное ранее остаётся в файле.
+     * </p>
+     *
+     * @param cause ошибка записи в журнал
+     * @return новая история в памяти
+     */
+    static History fallBackToMemory(RuntimeException cause) {
+        LOGGER.log(System.Logger.Level.WARNING, "История больше не сохраняется на диск", cause);
+        try {
+            history.close();
+        } catch (IOException | UncheckedIOException e) {
+            // Записи, не попавшие в файл, уже потеряны
+        }
+        history = new History();
+        return history;
+    }
+
+    /**
+     * Заменяет корень текущей сцены макетом из указанного FXML‑файла.
+     *
+     * @param fxml базовое имя FXML без расширения
+     * @throws IOException если не удалось загрузить FXML
+     */
+    static void setRoot(String fxml) throws IOException {
+        scene.setRoot(loadFXML(fxml));
+    }
+
+    /**
+     * Загружает FXML из того же пакета, что и этот класс.
+     *
+     * @param fxml базовое имя FXML без расширения
+     * @return корневой узел, определённый в FXML
+     * @throws IOException если файл не удалось прочитать или разобрать
+     */
+    private static Parent loadFXML(String fxml) throws IOException {
+        FXMLLoader fxmlLoader = new FXMLLoader(App.class.getResource(fxml + ".fxml"));
+        return fxmlLoader.load();
+    }
+
+    /**
+     * Запускает JavaFX‑приложение.
+     *
+     * @param args аргументы командной строки (не используются)
+     */
+    public static void main(String[] args) {
+        launch();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.example;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+
+/**
+ * Выполняет вычисления вне потока JavaFX.
+ * <p>
+ * Каждая задача запускается в собственном виртуальном потоке, а результат
+ * передаётся обратно в поток JavaFX через {@link Platform#runLater}. Задачи
+ * нумеруются: новая задача или {@link #cancel()} делают результаты всех
+ * предыдущих устаревшими, и они отбрасываются, даже если уже вычислены.
+ * </p>
+ * <p>
+ * Задача, не уложившаяся в отведённое время, завершается ошибкой
+ * {@link java.util.concurrent.TimeoutException}. Вычисление выражения не
+ * реагирует на прерывание, поэтому поток такой задачи досчитывает в фоне,
+ * но его результат уже никуда не попадёт.
+ * </p>
+ * <p>
+ * Методы {@link #submit} и {@link #cancel()} вызываются из потока JavaFX.
+ * </p>
+ */
+final class AsyncEvaluator {
+
+    /** Время на одно вычисление по умолчанию, мс. */
+    static final long DEFAULT_TIMEOUT_MILLIS = 2000;
+
+    private static final ExecutorService WORKERS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final long timeoutMillis;
+    private final Executor callbacks;
+
+    /** Номер последней задачи; читается и меняется только в потоке JavaFX. */
+    private long generation;
+
+    private CompletableFuture<?> current;
+
+    /**
+     * Создаёт исполнитель с таймаутом из системного свойства
+     * {@code com.example.evaluationTimeoutMillis}
+     * (по умолчанию {@value #DEFAULT_TIMEOUT_MILLIS} мс).
+     */
+    AsyncEvaluator() {
+        this(Long.getLong("com.example.evaluationTimeoutMillis", DEFAULT_TIMEOUT_MILLIS), Platform::runLater);
+    }
+
+    /**
+     * @param timeoutMillis время на одно вычисление, мс
+     * @param callbacks     исполнитель обработчиков результата (поток UI)
+     */
+    AsyncEvaluator(long timeoutMillis, Executor callbacks) {
+        this.timeoutMillis = timeoutMillis;
+        this.callbacks = callbacks;
+    }
+
+    /**
+     * Запускает задачу, отменяя предыдущую.
+     *
+     * @param task      вычисление
+     * @param onSuccess вызывается в потоке UI с результатом, если задача не устарела
+     * @param onFailure вызывается в потоке UI с исключением задачи или
+     *                  {@link java.util.concurrent.TimeoutException}
+     */
+    <T> void submit(Callable<T> task, Consumer<? super T> onSuccess, Consumer<? super Throwable> onFailure) {
+        cancel();
+        long id = generation;
+
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, WORKERS).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        current = future;
+
+        future.whenComplete((result, error) -> callbacks.execute(() -> {
+            if (id != generation) {
+                return;
+            }
+            current = null;
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                onFailure.accept(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error);
+            }
+        }));
+    }
+
+    /**
+     * Делает результат текущей задачи устаревшим.
+     */
+    void cancel() {
+        generation++;
+        if (current != null) {
+            current.cancel(true);
+            current = null;
+        }
+    }
+
+    /**
+     * Возвращает {@code true}, если есть задача, результат которой ещё ожидается.
+     */
+    boolean isPending() {
+        return current != null;
+    }
+}
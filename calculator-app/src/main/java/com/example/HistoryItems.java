@@ -0,0 +1,181 @@
+package com.example;
+
+import com.example.util.History;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+/**
+ * Записи истории как список для {@link javafx.scene.control.ListView}.
+ * <p>
+ * {@code ListView} создаёт ячейки только для видимых строк и запрашивает
+ * у списка только их элементы, а список не держит историю целиком: записи
+ * читаются из {@link History} страницами по {@value #PAGE_SIZE} в фоновом
+ * виртуальном потоке. Пока страница не загружена, её строки показывают
+ * заглушку; после загрузки список сообщает о замене этих строк. Вместе с
+ * запрошенной страницей загружается предыдущая, чтобы прокрутка к старым
+ * записям не упиралась в заглушки. В памяти держится не больше
+ * {@value #MAX_PAGES} последних использованных страниц, поэтому время кадра
+ * и память не зависят от длины истории.
+ * </p>
+ * <p>
+ * Страница, которую не удалось прочитать, показывает {@link #FAILED} и
+ * запрашивается повторно не больше {@value #MAX_ATTEMPTS} раз, чтобы
+ * недоступный журнал не читался заново при каждой прокрутке. Записи,
+ * добавленные, пока страница читалась, запоминаются и дописываются к ней
+ * по завершении чтения: поток JavaFX к журналу не обращается.
+ * </p>
+ * <p>
+ * Методы вызываются из потока JavaFX.
+ * </p>
+ */
+final class HistoryItems extends ObservableListBase<String> {
+
+    /** Записей на странице. */
+    static final int PAGE_SIZE = 256;
+
+    /** Наибольшее количество страниц в памяти. */
+    static final int MAX_PAGES = 16;
+
+    /** Текст строки, страница которой ещё загружается. */
+    static final String LOADING = "…";
+
+    /** Текст строки, страницу которой не удалось прочитать. */
+    static final String FAILED = "⚠ запись недоступна";
+
+    /** Наибольшее количество попыток прочитать страницу. */
+    static final int MAX_ATTEMPTS = 3;
+
+    private static final System.Logger LOGGER = System.getLogger(HistoryItems.class.getName());
+
+    private static final ExecutorService LOADER = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final History history;
+    private final Executor callbacks;
+
+    /** Загруженные страницы в порядке использования. */
+    private final Map<Integer, List<String>> pages = new LinkedHashMap<>(MAX_PAGES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<String>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    /** Записи, добавленные в страницы, пока те читаются. */
+    private final Map<Integer, List<String>> loading = new HashMap<>();
+
+    /** Число неудачных попыток чтения по страницам. */
+    private final Map<Integer, Integer> failures = new HashMap<>();
+
+    private int size;
+
+    /**
+     * @param history история, записи которой показывает список
+     */
+    HistoryItems(History history) {
+        this(history, Platform::runLater);
+    }
+
+    /**
+     * @param history   история, записи которой показывает список
+     * @param callbacks исполнитель обработчиков загрузки (поток UI)
+     */
+    HistoryItems(History history, Executor callbacks) {
+        this.history = history;
+        this.callbacks = callbacks;
+        this.size = history.size();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int index) {
+        Objects.checkIndex(index, size);
+        int page = index / PAGE_SIZE;
+        List<String> entries = pages.get(page);
+        if (entries == null) {
+            load(page);
+            if (page > 0) {
+                load(page - 1);
+            }
+            return failures.containsKey(page) ? FAILED : LOADING;
+        }
+        return entries.get(index % PAGE_SIZE);
+    }
+
+    /**
+     * Показывает запись, только что добавленную в историю.
+     *
+     * @param entry текст записи
+     */
+    void added(String entry) {
+        int index = size++;
+        int page = index / PAGE_SIZE;
+        List<String> entries = pages.get(page);
+        if (entries != null) {
+            entries.add(entry);
+        } else if (loading.containsKey(page)) {
+            loading.get(page).add(entry);
+        } else if (index % PAGE_SIZE == 0) {
+            // Новая страница: записей на ней ещё нет, читать нечего
+            entries = new ArrayList<>(PAGE_SIZE);
+            entries.add(entry);
+            pages.put(page, entries);
+        }
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    private void load(int page) {
+        if (pages.containsKey(page) || loading.containsKey(page)
+                || failures.getOrDefault(page, 0) >= MAX_ATTEMPTS) {
+            return;
+        }
+        loading.put(page, new ArrayList<>());
+        int first = page * PAGE_SIZE;
+        // Строки страницы, которые уже есть в истории; более поздние придут через added()
+        int count = Math.min(size, first + PAGE_SIZE) - first;
+        CompletableFuture.supplyAsync(() -> history.getEntries(first, count), LOADER)
+                .whenComplete((entries, error) -> callbacks.execute(() -> loaded(page, entries, error)));
+    }
+
+    private void loaded(int page, List<String> entries, Throwable error) {
+        List<String> added = loading.remove(page);
+        int first = page * PAGE_SIZE;
+        int end = Math.min(size, first + PAGE_SIZE);
+        String previous = failures.containsKey(page) ? FAILED : LOADING;
+        if (error != null) {
+            int attempts = failures.merge(page, 1, Integer::sum);
+            LOGGER.log(System.Logger.Level.WARNING, String.format(
+                    "Не удалось прочитать страницу истории %d (попытка %d из %d)", page, attempts, MAX_ATTEMPTS),
+                    error);
+        } else {
+            failures.remove(page);
+            List<String> rows = new ArrayList<>(PAGE_SIZE);
+            rows.addAll(entries);
+            rows.addAll(added);
+            pages.put(page, rows);
+        }
+
+        beginChange();
+        for (int i = first; i < end; i++) {
+            nextSet(i, previous);
+        }
+        endChange();
+    }
+}
@@ -0,0 +1,190 @@
+package com.example;
+
+import com.example.expression.CompiledExpression;
+import com.example.expression.ExpressionDefinitions;
+import com.example.expression.ExpressionTokenizer;
+import com.example.util.NumberFormatter;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+
+/**
+ * Предварительный результат выражения, пересчитываемый при каждом вводе.
+ * <p>
+ * Вычисления выполняет один фоновый виртуальный поток. Запросы, пришедшие,
+ * пока он занят, не копятся: хранится только последний, поэтому серия
+ * нажатий сворачивается в одно вычисление. Запрос, устаревший во время
+ * вычисления, прерывается между этапами (компиляция, вычисление,
+ * форматирование), а его результат не показывается.
+ * </p>
+ * <p>
+ * Выражения компилируются в обход общего кэша
+ * {@link com.example.expression.ExpressionCache#shared()}: иначе каждый
+ * недописанный префикс ({@code 1}, {@code 1+}, {@code 1+s}…) занимал бы в нём
+ * место, вытесняя выражения, которые действительно вычисляются повторно, и
+ * искажал бы статистику попаданий.
+ * </p>
+ * <p>
+ * Для каждого показанного результата измеряется задержка от нажатия до
+ * показа текста в потоке JavaFX. Превышение бюджета в один кадр
+ * ({@value #FRAME_BUDGET_NANOS} нс) учитывается и пишется в журнал на
+ * уровне {@code DEBUG}.
+ * </p>
+ * <p>
+ * Методы {@link #request(String)} и {@link #cancel()} вызываются из потока
+ * JavaFX.
+ * </p>
+ */
+final class LivePreview {
+
+    /** Бюджет задержки: один кадр при 60 Гц. */
+    static final long FRAME_BUDGET_NANOS = 16_000_000;
+
+    private static final System.Logger LOGGER = System.getLogger(LivePreview.class.getName());
+
+    private static final ExpressionTokenizer TOKENIZER = new ExpressionTokenizer(
+            ExpressionDefinitions.FUNCTION_NAMES, ExpressionDefinitions.CONSTANT_NAMES);
+
+    /** Запрос на вычисление с моментом нажатия. */
+    private record Request(long id, String expression, long startNanos) {
+    }
+
+    private final Consumer<String> view;
+    private final Executor callbacks;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Request> pending = new AtomicReference<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private long lastLatencyNanos;
+    private long maxLatencyNanos;
+    private long overBudgetCount;
+
+    /**
+     * @param view получает текст предварительного результата в потоке
+     *             JavaFX; пустая строка — результата нет
+     */
+    LivePreview(Consumer<String> view) {
+        this(view, Platform::runLater);
+    }
+
+    LivePreview(Consumer<String> view, Executor callbacks) {
+        this.view = view;
+        this.callbacks = callbacks;
+    }
+
+    /**
+     * Запрашивает пересчёт для нового выражения.
+     *
+     * @param expression выражение; пустое очищает результат
+     */
+    void request(String expression) {
+        long id = generation.incrementAndGet();
+        if (expression.isEmpty()) {
+            pending.set(null);
+            view.accept("");
+            return;
+        }
+        pending.set(new Request(id, expression, System.nanoTime()));
+        if (running.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("live-preview").start(this::drain);
+        }
+    }
+
+    /**
+     * Отменяет ожидающие и выполняющиеся запросы и очищает результат.
+     */
+    void cancel() {
+        generation.incrementAndGet();
+        pending.set(null);
+        view.accept("");
+    }
+
+    /**
+     * Возвращает задержку последнего показанного результата, нс.
+     */
+    long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    /**
+     * Возвращает наибольшую задержку показанного результата, нс.
+     */
+    long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    /**
+     * Возвращает число результатов, показанных позже бюджета в один кадр.
+     */
+    long getOverBudgetCount() {
+        return overBudgetCount;
+    }
+
+    /**
+     * Вычисляет запросы, пока они поступают.
+     */
+    private void drain() {
+        do {
+            Request request;
+            while ((request = pending.getAndSet(null)) != null) {
+                String text = evaluate(request);
+                if (text != null) {
+                    Request shown = request;
+                    callbacks.execute(() -> deliver(shown, text));
+                }
+            }
+            running.set(false);
+            // Запрос мог прийти между последней проверкой и сбросом флага
+        } while (pending.get() != null && running.compareAndSet(false, true));
+    }
+
+    /**
+     * Вычисляет результат запроса.
+     *
+     * @return текст результата или {@code null}, если запрос устарел
+     */
+    private String evaluate(Request request) {
+        try {
+            CompiledExpression compiled = CompiledExpression.compile(TOKENIZER.tokenize(request.expression()));
+            if (isStale(request)) {
+                return null;
+            }
+            double value = compiled.evaluate();
+            if (isStale(request)) {
+                return null;
+            }
+            String result = NumberFormatter.format(value);
+            // Число само по себе не нуждается в предпросмотре
+            return result.equals(request.expression()) ? "" : "= " + result;
+        } catch (RuntimeException e) {
+            // Незаконченное выражение: результата пока нет
+            return "";
+        }
+    }
+
+    private boolean isStale(Request request) {
+        return request.id() != generation.get();
+    }
+
+    private void deliver(Request request, String text) {
+        if (isStale(request)) {
+            return;
+        }
+        view.accept(text);
+
+        long latency = System.nanoTime() - request.startNanos();
+        lastLatencyNanos = latency;
+        maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+        if (latency > FRAME_BUDGET_NANOS) {
+            overBudgetCount++;
+            LOGGER.log(System.Logger.Level.DEBUG, "Предпросмотр \"{0}\": {1} мкс, больше бюджета кадра",
+                    request.expression(), latency / 1000);
+        }
+    }
+}
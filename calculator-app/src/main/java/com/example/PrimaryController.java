@@ -1,15 +1,20 @@
 package com.example;
 
 import com.example.expression.ExpressionParser;
+import com.example.expression.Token;
 import com.example.util.CurrentInput;
 import com.example.util.History;
 import com.example.util.NumberFormatter;
 import com.example.util.TokenManager;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.Button;
 import javafx.event.ActionEvent;
 import javafx.application.Platform;
@@ -28,11 +33,49 @@ public class PrimaryController {
     private Label display;
 
     @FXML
-    private Label historyLabel;
+    private ListView<String> historyList;
 
-    private final History history = new History();
+    @FXML
+    private Label previewLabel;
+
+    private History history = App.history();
+    private HistoryItems historyItems;
     private final TokenManager tokenManager = new TokenManager();
     private final CurrentInput currentInput = new CurrentInput();
+    private final AsyncEvaluator evaluator = new AsyncEvaluator();
+    private final LivePreview preview = new LivePreview(this::showPreview);
+
+    /**
+     * Подключает список истории и прокручивает его к последней записи.
+     * <p>
+     * Щелчок по записи возвращает её выражение к редактированию.
+     * </p>
+     */
+    @FXML
+    private void initialize() {
+        showHistory();
+        historyList.setCellFactory(list -> {
+            ListCell<String> cell = new ListCell<>() {
+                @Override
+                protected void updateItem(String item, boolean empty) {
+                    super.updateItem(item, empty);
+                    setText(empty ? null : item);
+                }
+            };
+            cell.setOnMouseClicked(event -> {
+                if (!cell.isEmpty()) {
+                    onHistoryEntry(cell.getItem());
+                }
+            });
+            return cell;
+        });
+        historyList.scrollTo(historyItems.size() - 1);
+    }
+
+    private void showHistory() {
+        historyItems = new HistoryItems(history);
+        historyList.setItems(historyItems);
+    }
 
     // ========== Навигация ==========
 
@@ -256,8 +299,11 @@ public class PrimaryController {
      * Вычисляет текущее выражение и показывает результат.
      * <p>
      * Завершает текущий ввод, удаляет оператор в конце (если есть),
-     * парсит выражение и вычисляет результат. Результат добавляется
-     * в историю и отображается на экране.
+     * затем передаёт токены ввода парсеру без повторной токенизации строки
+     * и вычисляет выражение в фоновом потоке (см.
+     * {@link AsyncEvaluator}), чтобы длинные выражения не блокировали
+     * интерфейс. Результат добавляется в историю и отображается на экране;
+     * ошибка или превышение времени переводят калькулятор в состояние ошибки.
      * </p>
      */
     @FXML
@@ -272,21 +318,47 @@ public class PrimaryController {
         if (tokenManager.isEmpty())
             return;
 
+        String expression = tokenManager.toExpression();
+        List<Token> tokens;
         try {
-            String expression = tokenManager.toExpression();
-            double result = new ExpressionParser(expression).evaluate();
-            String formattedResult = NumberFormatter.format(result);
-
-            history.addEntry(expression + " = " + formattedResult);
-            updateHistoryLabel();
-
-            tokenManager.clear();
-            currentInput.setValue(formattedResult);
-            display.setText(formattedResult);
-            finalizeCurrentInput();
-        } catch (Exception e) {
+            tokens = tokenManager.toTokens();
+        } catch (IllegalArgumentException e) {
             resetToError();
+            return;
+        }
+        evaluator.submit(
+                () -> NumberFormatter.format(new ExpressionParser(tokens).evaluate()),
+                formattedResult -> showResult(expression, formattedResult),
+                error -> resetToError());
+    }
+
+    /**
+     * Показывает результат вычисления и добавляет его в историю.
+     * <p>
+     * Если журнал истории не принимает запись, история дальше ведётся в
+     * памяти (см. {@link App#fallBackToMemory}), а список начинается заново.
+     * </p>
+     *
+     * @param expression      вычисленное выражение
+     * @param formattedResult отформатированный результат
+     */
+    private void showResult(String expression, String formattedResult) {
+        preview.cancel();
+        String entry = expression + " = " + formattedResult;
+        try {
+            history.addEntry(entry);
+        } catch (UncheckedIOException | IllegalStateException e) {
+            history = App.fallBackToMemory(e);
+            showHistory();
+            history.addEntry(entry);
         }
+        historyItems.added(entry);
+        historyList.scrollTo(historyItems.size() - 1);
+
+        tokenManager.clear();
+        currentInput.setValue(formattedResult);
+        display.setText(formattedResult);
+        finalizeCurrentInput();
     }
 
     /**
@@ -297,6 +369,33 @@ public class PrimaryController {
         resetState();
     }
 
+    /**
+     * Возвращает к редактированию выражение записи истории.
+     * <p>
+     * Запись имеет вид «выражение = результат»; выражение разбирается на
+     * элементы ввода и заменяет текущее, состояние ошибки сбрасывается.
+     * </p>
+     *
+     * @param entry текст записи
+     */
+    private void onHistoryEntry(String entry) {
+        // Выделение не нужно: при изменении списка модель выделения искала бы
+        // выделенный элемент перебором всех записей
+        historyList.getSelectionModel().clearSelection();
+
+        int separator = entry.lastIndexOf(" = ");
+        if (HistoryItems.LOADING.equals(entry) || HistoryItems.FAILED.equals(entry) || separator < 0) {
+            return;
+        }
+        resetState();
+        try {
+            tokenManager.load(entry.substring(0, separator));
+        } catch (IllegalArgumentException e) {
+            tokenManager.clear();
+        }
+        updateExpression();
+    }
+
     // ========== Вспомогательные методы ==========
 
     /**
@@ -348,6 +447,7 @@ public class PrimaryController {
      * Переводит калькулятор в состояние ошибки.
      */
     private void resetToError() {
+        preview.cancel();
         display.setText(ERROR_TEXT);
         tokenManager.clear();
         currentInput.clear();
@@ -357,6 +457,8 @@ public class PrimaryController {
      * Полностью сбрасывает состояние калькулятора.
      */
     private void resetState() {
+        evaluator.cancel();
+        preview.cancel();
         display.setText("");
         tokenManager.clear();
         currentInput.clear();
@@ -369,6 +471,9 @@ public class PrimaryController {
      * </p>
      */
     private void updateExpression() {
+        // Выражение изменилось: результат начатого вычисления устарел
+        evaluator.cancel();
+
         if (display == null || isErrorState())
             return;
 
@@ -382,17 +487,51 @@ public class PrimaryController {
         }
 
         display.setText(expression);
+        preview.request(previewExpression());
     }
 
     /**
-     * Обновляет метку с историей вычислений.
+     * Формирует выражение для предварительного результата.
      * <p>
-     * Отображает последние несколько вычислений на экране истории.
+     * Убирает незаконченный хвост (оператор, запятую) и закрывает открытые
+     * скобки, чтобы «2 × (3 + 4» уже показывало результат.
      * </p>
+     *
+     * @return выражение или пустая строка, если вычислять нечего
+     */
+    private String previewExpression() {
+        StringBuilder expression = new StringBuilder(tokenManager.toExpression())
+                .append(currentInput.getValue());
+
+        int end = expression.length();
+        while (end > 0 && "+-*/^×÷,".indexOf(expression.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        expression.setLength(end);
+
+        int open = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '(') {
+                open++;
+            } else if (c == ')') {
+                open--;
+            }
+        }
+        for (; open > 0; open--) {
+            expression.append(')');
+        }
+        return expression.toString();
+    }
+
+    /**
+     * Показывает предварительный результат под выражением.
+     *
+     * @param text текст результата или пустая строка
      */
-    private void updateHistoryLabel() {
-        if (historyLabel != null) {
-            historyLabel.setText(history.getFormattedHistory());
+    private void showPreview(String text) {
+        if (previewLabel != null) {
+            previewLabel.setText(text);
         }
     }
 }
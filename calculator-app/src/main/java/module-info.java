@@ -2,6 +2,7 @@
  * Модуль JavaFX‑калькулятора с точкой входа и контроллерами.
  */
 module com.example {
+    requires com.example.core;
     requires javafx.controls;
     requires javafx.fxml;
     requires transitive javafx.graphics;
@@ -0,0 +1,87 @@
+package com.example.benchmark;
+
+import com.example.expression.CompiledExpression;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Пакетное вычисление: время на одну строку.
+ * <p>
+ * Векторные операции включаются флагом JVM, например
+ * {@code java -jar target/benchmarks.jar Batch -jvmArgsAppend "--add-modules jdk.incubator.vector"}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(BatchBenchmark.ROWS)
+public class BatchBenchmark {
+
+    static final int ROWS = 1 << 16;
+
+    @Param({ "SHORT", "LONG", "NESTED", "VARIABLES" })
+    public Corpus corpus;
+
+    private CompiledExpression compiled;
+    private CompiledExpression jitted;
+    private double[][] columns;
+    private final double[] out = new double[ROWS];
+
+    @Setup
+    public void setUp() {
+        compiled = CompiledExpression.compile(corpus.expression());
+        jitted = compiled.withJit();
+        columns = new double[compiled.getVariableNames().size()][ROWS];
+        for (int slot = 0; slot < columns.length; slot++) {
+            for (int row = 0; row < ROWS; row++) {
+                columns[slot][row] = 1.5 + slot + row % 97 * 0.01;
+            }
+        }
+    }
+
+    @Benchmark
+    public double[] rows() {
+        double[] values = new double[columns.length];
+        for (int row = 0; row < ROWS; row++) {
+            for (int slot = 0; slot < values.length; slot++) {
+                values[slot] = columns[slot][row];
+            }
+            out[row] = compiled.evaluate(values);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] batch() {
+        compiled.evaluateBatch(columns, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] jit() {
+        jitted.evaluateBatch(columns, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] parallel() {
+        compiled.evaluateBatchParallel(columns, out);
+        return out;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Набор выражений для бенчмарков.
+ * <p>
+ * Каждое выражение содержит переменные, чтобы оптимизатор не свернул его в
+ * одно число и вычисление действительно выполнялось.
+ * </p>
+ */
+public enum Corpus {
+
+    /** Короткое выражение, типичное для ввода с клавиатуры. */
+    SHORT("2 * x + 1", "x"),
+
+    /** Длинная сумма из сотен токенов, например вставленная из буфера обмена. */
+    LONG(longExpression(), "x"),
+
+    /** Глубоко вложенные скобки и вызовы функций. */
+    NESTED(nestedExpression(), "x"),
+
+    /** Много переменных и функций двух аргументов. */
+    VARIABLES("x * y + z / w - sqrt(x * x + y * y) + max(z, w) * u ^ 2 - min(u, v) / (v + 10)",
+            "x", "y", "z", "w", "u", "v");
+
+    private final String expression;
+    private final String[] variables;
+
+    Corpus(String expression, String... variables) {
+        this.expression = expression;
+        this.variables = variables;
+    }
+
+    /**
+     * Возвращает текст выражения.
+     */
+    public String expression() {
+        return expression;
+    }
+
+    /**
+     * Возвращает значения переменных выражения: 1.5, 2.5, 3.5, ...
+     */
+    public Map<String, Double> variables() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (int i = 0; i < variables.length; i++) {
+            values.put(variables[i], 1.5 + i);
+        }
+        return values;
+    }
+
+    private static String longExpression() {
+        StringBuilder sb = new StringBuilder("x");
+        for (int i = 1; i <= 50; i++) {
+            sb.append(i % 2 == 0 ? " + " : " - ")
+                    .append(i).append(".25 * sin(x / ").append(i).append(")");
+        }
+        return sb.toString();
+    }
+
+    private static String nestedExpression() {
+        StringBuilder sb = new StringBuilder();
+        int depth = 32;
+        for (int i = 0; i < depth; i++) {
+            sb.append(i % 2 == 0 ? "abs(" : "(1 + ");
+        }
+        sb.append("x");
+        for (int i = 0; i < depth; i++) {
+            sb.append(")");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.benchmark;
+
+import com.example.expression.CompiledExpression;
+import com.example.expression.ExpressionDefinitions;
+import com.example.expression.ExpressionEvaluator;
+import com.example.expression.ExpressionTokenizer;
+import com.example.expression.PrattParser;
+import com.example.expression.Token;
+
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Выражение из {@link Corpus} на всех стадиях разбора.
+ * <p>
+ * Каждая стадия подготавливается заранее, чтобы бенчмарк стадии измерял
+ * только её саму.
+ * </p>
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+
+    @Param({ "SHORT", "LONG", "NESTED", "VARIABLES" })
+    public Corpus corpus;
+
+    public final ExpressionTokenizer tokenizer = new ExpressionTokenizer(
+            ExpressionDefinitions.FUNCTION_NAMES,
+            ExpressionDefinitions.CONSTANT_NAMES);
+    public final PrattParser parser = new PrattParser(ExpressionDefinitions.FUNCTIONS);
+    public final ExpressionEvaluator evaluator = ExpressionEvaluator.createDefault();
+
+    public String expression;
+    public Map<String, Double> variables;
+    public List<Token> tokens;
+    public List<Token> rpn;
+    public CompiledExpression compiled;
+    public CompiledExpression jitted;
+    /** Значения переменных в порядке слотов {@link #compiled}. */
+    public double[] values;
+
+    @Setup
+    public void setUp() {
+        expression = corpus.expression();
+        variables = corpus.variables();
+        tokens = tokenizer.tokenize(expression);
+        rpn = parser.parse(tokens);
+        compiled = CompiledExpression.compile(expression);
+        jitted = compiled.withJit();
+
+        List<String> names = compiled.getVariableNames();
+        values = new double[names.size()];
+        for (int slot = 0; slot < values.length; slot++) {
+            values[slot] = variables.get(names.get(slot));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.benchmark;
+
+import com.example.expression.CompiledExpression;
+import com.example.expression.ExpressionCache;
+import com.example.expression.ExpressionParser;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Полный путь от строки до результата.
+ * <ul>
+ * <li>{@code parser} — как в UI: {@code new ExpressionParser(expression)},
+ * переменные, {@code evaluate()};</li>
+ * <li>{@code cached} — {@code CompiledExpression.compile} с попаданием в общий кэш;</li>
+ * <li>{@code uncached} — промах кэша: токенизация, разбор, оптимизация и
+ * понижение заново;</li>
+ * <li>{@code tokens} — токенизация, разбор и обход RPN без компиляции.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EndToEndBenchmark {
+
+    /** Отдельный кэш, который очищается перед каждым вызовом. */
+    private final ExpressionCache cache = new ExpressionCache(1);
+
+    @Benchmark
+    public double parser(CorpusState state) {
+        ExpressionParser parser = new ExpressionParser(state.expression);
+        for (Map.Entry<String, Double> variable : state.variables.entrySet()) {
+            parser.setVariable(variable.getKey(), variable.getValue());
+        }
+        return parser.evaluate();
+    }
+
+    @Benchmark
+    public double cached(CorpusState state) {
+        return CompiledExpression.compile(state.expression).evaluate(state.variables);
+    }
+
+    @Benchmark
+    public double uncached(CorpusState state) {
+        cache.clear();
+        return cache.get(state.expression).evaluate(state.variables);
+    }
+
+    @Benchmark
+    public double tokens(CorpusState state) {
+        return state.evaluator.evaluate(
+                state.parser.parse(state.tokenizer.tokenize(state.expression)), state.variables);
+    }
+}
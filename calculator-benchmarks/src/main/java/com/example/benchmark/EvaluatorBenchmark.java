@@ -0,0 +1,48 @@
+package com.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Вычисление уже разобранного выражения разными способами.
+ * <ul>
+ * <li>{@code tokens} — обход RPN из токенов ({@code ExpressionEvaluator.evaluate});</li>
+ * <li>{@code program} — интерпретатор программы по значениям в слотах;</li>
+ * <li>{@code map} — то же по карте имён переменных;</li>
+ * <li>{@code jit} — байт-код из {@code withJit()}.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+
+    @Benchmark
+    public double tokens(CorpusState state) {
+        return state.evaluator.evaluate(state.rpn, state.variables);
+    }
+
+    @Benchmark
+    public double program(CorpusState state) {
+        return state.compiled.evaluate(state.values);
+    }
+
+    @Benchmark
+    public double map(CorpusState state) {
+        return state.compiled.evaluate(state.variables);
+    }
+
+    @Benchmark
+    public double jit(CorpusState state) {
+        return state.jitted.evaluate(state.values);
+    }
+}
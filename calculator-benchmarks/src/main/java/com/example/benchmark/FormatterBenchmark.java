@@ -0,0 +1,62 @@
+package com.example.benchmark;
+
+import com.example.util.NumberFormatter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Форматирование результатов для отображения: время на одно число.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(8)
+public class FormatterBenchmark {
+
+    /** Целые, дроби, малые и большие значения, «почти ноль». */
+    private final double[] values = {
+            42, -7, 3.14159265358979, 2.5, 1e-11, 0.1 + 0.2, 123456.789012345, -0.000123
+    };
+
+    private final StringBuilder builder = new StringBuilder(NumberFormatter.MAX_LENGTH);
+    private final char[] buffer = new char[NumberFormatter.MAX_LENGTH];
+
+    @Benchmark
+    public void format(Blackhole blackhole) {
+        for (double value : values) {
+            blackhole.consume(NumberFormatter.format(value));
+        }
+    }
+
+    /** Дописывание в переиспользуемый {@link StringBuilder}: без выделения памяти. */
+    @Benchmark
+    public void formatToBuilder(Blackhole blackhole) {
+        for (double value : values) {
+            builder.setLength(0);
+            blackhole.consume(NumberFormatter.format(value, builder));
+        }
+    }
+
+    /** Запись в переиспользуемый массив символов: без выделения памяти. */
+    @Benchmark
+    public void formatToChars(Blackhole blackhole) {
+        for (double value : values) {
+            blackhole.consume(NumberFormatter.format(value, buffer, 0));
+        }
+    }
+}
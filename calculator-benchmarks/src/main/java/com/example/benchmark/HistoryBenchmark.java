@@ -0,0 +1,92 @@
+package com.example.benchmark;
+
+import com.example.util.History;
+import com.example.util.NumberFormatter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Поиск и чтение окна в журнале истории из {@code entries} записей:
+ * время на один запрос.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryBenchmark {
+
+    private static final String[] FUNCTIONS = {"sin", "cos", "sqrt", "log", "abs"};
+
+    @Param({"300000"})
+    public int entries;
+
+    private Path file;
+    private History history;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("history", ".log");
+        Files.delete(file);
+        Random random = new Random(42);
+        try (History log = History.open(file, History.Sync.NONE, History.DEFAULT_BATCH_SIZE)) {
+            for (int i = 0; i < entries; i++) {
+                int argument = random.nextInt(10_000);
+                String function = FUNCTIONS[random.nextInt(FUNCTIONS.length)];
+                log.addEntry(String.format("%d + %s(%d) = %s", random.nextInt(1000), function, argument,
+                        NumberFormatter.format(random.nextInt(1000) + Math.sin(argument))));
+            }
+        }
+        // Записи читаются из отображения файла, как после перезапуска приложения
+        history = History.open(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        history.close();
+        Files.delete(file);
+    }
+
+    /** Двадцать последних записей с подстрокой: ранний выход. */
+    @Benchmark
+    public int[] containsFrequent() {
+        return history.findContaining("sqrt(1", 20);
+    }
+
+    /** Подстрока, которой нет: полный просмотр сигнатур. */
+    @Benchmark
+    public int[] containsMissing() {
+        return history.findContaining("tan(", 20);
+    }
+
+    /** Двоичный поиск по упорядоченному индексу. */
+    @Benchmark
+    public int[] prefix() {
+        return history.findByPrefix("123 + s", 20);
+    }
+
+    /** Видимое окно в середине истории. */
+    @Benchmark
+    public String window() {
+        return history.getFormattedHistory(entries / 2, 30);
+    }
+}
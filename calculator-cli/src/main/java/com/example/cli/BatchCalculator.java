@@ -0,0 +1,127 @@
+package com.example.cli;
+
+import com.example.expression.ExpressionCache;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * Пакетное вычисление выражений из файла или стандартного ввода.
+ * <p>
+ * Читает по одному выражению на строку, при необходимости с привязками
+ * переменных ({@code x^2 + y; x=3; y=4}), и выводит по одному результату на
+ * строку в том же порядке. Файл отображается в память, стандартный ввод
+ * читается кусками. Строки вычисляются параллельно (см. {@link BatchPipeline}),
+ * а в конце в stderr выводится сводка: число строк и ошибок по типам,
+ * время, пропускная способность и статистика кэша выражений.
+ * </p>
+ *
+ * <h3>Использование:</h3>
+ * <pre>
+ * BatchCalculator [--threads N] [--output ФАЙЛ] [ФАЙЛ | -]
+ * </pre>
+ * <p>
+ * Без файла или с {@code -} читается стандартный ввод, без {@code --output}
+ * результаты пишутся в стандартный вывод. Код завершения: 0 — все строки
+ * вычислены, 1 — были строки с ошибками, 2 — ошибка аргументов или ввода-вывода.
+ * </p>
+ */
+public final class BatchCalculator {
+
+    /** Все строки вычислены. */
+    static final int EXIT_OK = 0;
+
+    /** В некоторых строках были ошибки. */
+    static final int EXIT_LINE_ERRORS = 1;
+
+    /** Ошибка аргументов или ввода-вывода. */
+    static final int EXIT_FAILURE = 2;
+
+    private static final String USAGE =
+            "Использование: BatchCalculator [--threads N] [--output ФАЙЛ] [ФАЙЛ | -]";
+
+    private BatchCalculator() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.err));
+    }
+
+    /**
+     * Выполняет команду.
+     *
+     * @param args аргументы командной строки
+     * @param log  поток для сводки и сообщений об ошибках
+     * @return код завершения
+     */
+    static int run(String[] args, PrintStream log) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path input = null;
+        Path output = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads" -> threads = parseThreads(value(args, ++i));
+                    case "--output" -> output = Path.of(value(args, ++i));
+                    case "--help", "-h" -> {
+                        log.println(USAGE);
+                        return EXIT_OK;
+                    }
+                    case "-" -> input = null;
+                    default -> {
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException(
+                                    String.format("Неизвестный параметр: %s", args[i]));
+                        }
+                        input = Path.of(args[i]);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            log.println(e.getMessage());
+            log.println(USAGE);
+            return EXIT_FAILURE;
+        }
+
+        long start = System.nanoTime();
+        BatchSummary summary;
+        try (ChunkSource source = input != null ? ChunkSource.open(input) : ChunkSource.of(System.in);
+                OutputStream out = output != null
+                        ? new BufferedOutputStream(Files.newOutputStream(output))
+                        : new FileOutputStream(FileDescriptor.out)) {
+            summary = new BatchPipeline(threads).run(source, out);
+        } catch (NoSuchFileException e) {
+            log.println("Ошибка: файл не найден: " + e.getFile());
+            return EXIT_FAILURE;
+        } catch (IOException | IllegalArgumentException e) {
+            log.println("Ошибка: " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+
+        log.println(summary.report(System.nanoTime() - start, ExpressionCache.shared()));
+        return summary.getErrors() == 0 ? EXIT_OK : EXIT_LINE_ERRORS;
+    }
+
+    private static int parseThreads(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Некорректное число потоков: %s", text));
+        }
+    }
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(
+                    String.format("Параметру %s требуется значение", args[index - 1]));
+        }
+        return args[index];
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.cli;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Конвейер чтение → вычисление → запись с сохранением порядка строк.
+ * <p>
+ * Поток чтения нарезает вход на куски и отдаёт каждый рабочему потоку, а
+ * будущий результат куска ставит в очередь в порядке чтения. Рабочий поток
+ * разбирает, вычисляет и форматирует строки своего куска целиком: передавать
+ * между потоками отдельные выражения дороже, чем их вычислять. Поток записи
+ * забирает результаты из очереди по порядку, поэтому вывод совпадает по
+ * порядку с вводом, как бы ни завершались куски.
+ * </p>
+ * <p>
+ * Очередь ограничена удвоенным числом рабочих потоков: если запись или
+ * вычисление не успевают, чтение останавливается, и в памяти находится не
+ * больше этого числа кусков.
+ * </p>
+ */
+final class BatchPipeline {
+
+    /** Результат обработки куска. */
+    private record Chunk(byte[] output, BatchSummary summary) {
+    }
+
+    private final int threads;
+
+    /**
+     * @param threads число рабочих потоков
+     * @throws IllegalArgumentException если число потоков не положительно
+     */
+    BatchPipeline(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Число потоков должно быть положительным: %d", threads));
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Обрабатывает весь вход и записывает результаты.
+     *
+     * @param source источник строк
+     * @param out    приёмник результатов; не закрывается
+     * @return суммарные счётчики
+     * @throws IOException при ошибке чтения, записи или сбое потока чтения и
+     *                     рабочих потоков
+     */
+    BatchSummary run(ChunkSource source, OutputStream out) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("batch-worker-", 1).daemon().factory());
+        ThreadLocal<LineEvaluator> evaluators = ThreadLocal.withInitial(LineEvaluator::new);
+        BlockingQueue<CompletableFuture<Chunk>> results = new ArrayBlockingQueue<>(2 * threads);
+
+        Thread reader = Thread.ofPlatform().name("batch-reader").daemon().start(() -> {
+            CompletableFuture<Chunk> last;
+            try {
+                ByteBuffer data;
+                while ((data = source.next()) != null) {
+                    ByteBuffer chunk = data;
+                    results.put(CompletableFuture.supplyAsync(() -> {
+                        BatchSummary summary = new BatchSummary();
+                        return new Chunk(evaluators.get().evaluate(chunk, summary), summary);
+                    }, workers));
+                }
+                // Пустой результат отмечает конец входа
+                last = CompletableFuture.completedFuture(null);
+            } catch (InterruptedException e) {
+                // Запись прекращена, читать дальше незачем
+                return;
+            } catch (Throwable e) {
+                last = CompletableFuture.failedFuture(e);
+            }
+            // Запись ждёт последний результат, даже если чтение сломалось
+            try {
+                results.put(last);
+            } catch (InterruptedException e) {
+                // Запись уже прекращена
+            }
+        });
+
+        BatchSummary total = new BatchSummary();
+        try {
+            Chunk chunk;
+            while ((chunk = results.take().join()) != null) {
+                out.write(chunk.output());
+                total.add(chunk.summary());
+            }
+            out.flush();
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Пакетное вычисление прервано");
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException(String.format("Ошибка пакетного вычисления: %s", e.getCause()), e.getCause());
+        } finally {
+            reader.interrupt();
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.cli;
+
+import com.example.expression.ExpressionCache;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Счётчики пакетного вычисления.
+ * <p>
+ * Каждый кусок считает свои строки отдельно, а поток записи складывает
+ * счётчики кусков, поэтому рабочие потоки не соперничают за общие счётчики.
+ * </p>
+ */
+final class BatchSummary {
+
+    private long lines;
+    private long blankLines;
+    private long evaluated;
+    private long errors;
+    private long bytes;
+    private final Map<String, Long> errorsByType = new TreeMap<>();
+
+    void recordBlank() {
+        lines++;
+        blankLines++;
+    }
+
+    void recordResult() {
+        lines++;
+        evaluated++;
+    }
+
+    void recordError(RuntimeException error) {
+        lines++;
+        errors++;
+        errorsByType.merge(error.getClass().getSimpleName(), 1L, Long::sum);
+    }
+
+    void recordBytes(long count) {
+        bytes += count;
+    }
+
+    /**
+     * Добавляет счётчики другого куска.
+     */
+    void add(BatchSummary other) {
+        lines += other.lines;
+        blankLines += other.blankLines;
+        evaluated += other.evaluated;
+        errors += other.errors;
+        bytes += other.bytes;
+        other.errorsByType.forEach((type, count) -> errorsByType.merge(type, count, Long::sum));
+    }
+
+    long getLines() {
+        return lines;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Формирует итоговый отчёт.
+     *
+     * @param elapsedNanos время обработки, нс
+     * @param cache        кэш выражений, статистика которого выводится
+     * @return многострочный отчёт
+     */
+    String report(long elapsedNanos, ExpressionCache cache) {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Строк: %d (пустых: %d), вычислено: %d, ошибок: %d%n",
+                lines, blankLines, evaluated, errors));
+        errorsByType.forEach((type, count) -> report.append(String.format("  %s: %d%n", type, count)));
+        report.append(String.format("Время: %.3f с, %.0f строк/с, %.1f МБ/с%n",
+                seconds, lines / seconds, bytes / seconds / (1024 * 1024)));
+        report.append(String.format("Кэш выражений: попаданий %d, промахов %d, вытеснений %d",
+                cache.getHitCount(), cache.getMissCount(), cache.getEvictionCount()));
+        return report.toString();
+    }
+}
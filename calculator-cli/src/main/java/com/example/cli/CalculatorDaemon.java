@@ -0,0 +1,385 @@
+package com.example.cli;
+
+import com.example.util.NumberFormatter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Долгоживущий демон вычислений на Unix-сокете.
+ * <p>
+ * Скрипт, вызывающий калькулятор тысячи раз, при каждом запуске JVM платит
+ * за старт, загрузку классов и холодный JIT. Демон запускается один раз, а
+ * дальше запрос — одна строка в сокет: прогретый JIT и общий кэш выражений
+ * сохраняются между вызовами.
+ * </p>
+ *
+ * <h3>Протокол</h3>
+ * <p>
+ * Построчный, UTF-8. Запрос — строка в формате {@link BatchCalculator}
+ * ({@code x^2 + y; x=3; y=4}), ответ — одна строка: отформатированный
+ * результат или {@code ошибка: сообщение}. В одном соединении можно
+ * отправить сколько угодно строк подряд, не дожидаясь ответов; ответы
+ * приходят в том же порядке. Соединения обслуживаются виртуальными потоками.
+ * </p>
+ *
+ * <h3>Использование:</h3>
+ * <pre>
+ * CalculatorDaemon [--socket ПУТЬ]                          # запуск демона
+ * CalculatorDaemon --client [--socket ПУТЬ] [ВЫРАЖЕНИЕ...]  # клиент
+ * echo '2^10' | socat - UNIX-CONNECT:ПУТЬ                   # без JVM
+ * </pre>
+ * <p>
+ * Путь по умолчанию — {@code calculator.sock} в {@code $XDG_RUNTIME_DIR},
+ * а без него — в каталоге {@code calculator-ИМЯ} с правами {@code rwx------}
+ * во временном каталоге (см. {@link #defaultSocket()}). Файл сокета доступен
+ * только владельцу, в том числе в момент создания: см. {@link #start(Path)}.
+ * Демон и клиент отказываются работать с сокетом другого пользователя, а
+ * демон не удаляет по пути сокета ничего, кроме оставшегося сокета.
+ * </p>
+ */
+public final class CalculatorDaemon implements Closeable {
+
+    private static final String USAGE = """
+            Использование:
+              CalculatorDaemon [--socket ПУТЬ]
+              CalculatorDaemon --client [--socket ПУТЬ] [ВЫРАЖЕНИЕ...]""";
+
+    private final Path path;
+    private final ServerSocketChannel server;
+
+    private CalculatorDaemon(Path path, ServerSocketChannel server) {
+        this.path = path;
+        this.server = server;
+    }
+
+    /**
+     * Запускает демон на сокете {@code path}.
+     * <p>
+     * Оставшийся от завершившегося демона файл сокета удаляется; если по
+     * этому пути уже отвечает другой демон, запуск отклоняется. Запуск
+     * отклоняется и тогда, когда по пути лежит не сокет или сокет другого
+     * пользователя.
+     * </p>
+     * <p>
+     * Сокет создаётся с правами процесса (umask), и к нему можно подключиться
+     * до того, как права будут сужены. Поэтому в POSIX-системах он создаётся
+     * в новом каталоге с правами {@code rwx------} рядом с {@code path},
+     * получает права {@code rw-------} и только затем переименовывается в
+     * {@code path}. Другие пользователи не могут войти в такой каталог, так
+     * что сокет не бывает доступен никому, кроме владельца.
+     * </p>
+     *
+     * @param path путь к файлу сокета
+     * @return запущенный демон
+     * @throws IOException если путь занят или не удаётся создать сокет
+     */
+    public static CalculatorDaemon start(Path path) throws IOException {
+        UnixDomainSocketAddress address = UnixDomainSocketAddress.of(path);
+        if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            if (!isSocket(path)) {
+                throw new IOException(String.format("Путь занят файлом, который не является сокетом: %s", path));
+            }
+            checkOwner(path);
+            if (isListening(address)) {
+                throw new IOException(String.format("Демон уже запущен: %s", path));
+            }
+            Files.delete(path);
+        }
+        // Инициализация реестра функций и токенизатора — до первого клиента
+        new LineEvaluator().evaluate("0");
+
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                bindPrivately(server, path);
+            } else {
+                server.bind(address);
+            }
+        } catch (IOException | RuntimeException e) {
+            server.close();
+            throw e;
+        }
+        CalculatorDaemon daemon = new CalculatorDaemon(path, server);
+        Thread.ofPlatform().name("daemon-acceptor").start(daemon::accept);
+        return daemon;
+    }
+
+    /**
+     * Привязывает сокет к {@code path} через закрытый каталог.
+     */
+    private static void bindPrivately(ServerSocketChannel server, Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Path directory = Files.createTempDirectory(parent, ".calculator-",
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        Path staged = directory.resolve("s");
+        try {
+            server.bind(UnixDomainSocketAddress.of(staged));
+            Files.setPosixFilePermissions(staged, PosixFilePermissions.fromString("rw-------"));
+            // Без REPLACE_EXISTING: сокет другого демона, успевшего занять путь, не затирается
+            Files.move(staged, path);
+        } finally {
+            Files.deleteIfExists(staged);
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Проверяет, что файл — сокет, а не обычный файл, каталог или ссылка.
+     */
+    private static boolean isSocket(Path path) throws IOException {
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("unix")) {
+            int mode = (int) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            return (mode & 0170000) == 0140000;
+        }
+        return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isOther();
+    }
+
+    /**
+     * Проверяет, что файл принадлежит пользователю, запустившему процесс:
+     * иначе чужой процесс мог бы выдать себя за демон и получать выражения.
+     *
+     * @throws IOException если файл принадлежит другому пользователю
+     */
+    private static void checkOwner(Path path) throws IOException {
+        String owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS).getName();
+        String user = System.getProperty("user.name");
+        // В Windows имя владельца включает домен: ДОМЕН\имя
+        if (!owner.equals(user) && !owner.endsWith("\\" + user)) {
+            throw new IOException(String.format("%s принадлежит пользователю %s", path, owner));
+        }
+    }
+
+    /**
+     * Возвращает путь к сокету по умолчанию.
+     * <p>
+     * Это {@code calculator.sock} в {@code $XDG_RUNTIME_DIR}: каталог
+     * создаётся системой для каждого пользователя и закрыт для остальных.
+     * Без него сокет лежит в каталоге {@code calculator-ИМЯ} во временном
+     * каталоге: общий каталог вроде {@code /tmp} открыт на запись всем, и
+     * другой пользователь мог бы заранее занять предсказуемый путь сокета.
+     * Каталог создаётся с правами {@code rwx------}; если он уже есть, он
+     * должен принадлежать пользователю и иметь те же права.
+     * </p>
+     *
+     * @return путь к файлу сокета
+     * @throws IOException если каталог принадлежит другому пользователю,
+     *                     открыт для других или не создаётся
+     */
+    static Path defaultSocket() throws IOException {
+        String runtime = System.getenv("XDG_RUNTIME_DIR");
+        if (runtime != null && !runtime.isEmpty() && Files.isDirectory(Path.of(runtime))) {
+            return Path.of(runtime, "calculator.sock");
+        }
+        Path directory = Path.of(System.getProperty("java.io.tmpdir"),
+                "calculator-" + System.getProperty("user.name"));
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(directory);
+            return directory.resolve("daemon.sock");
+        }
+        try {
+            Files.createDirectory(directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (FileAlreadyExistsException e) {
+            PosixFileAttributes attributes =
+                    Files.readAttributes(directory, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            if (!attributes.isDirectory()) {
+                throw new IOException(String.format("Путь занят файлом, который не является каталогом: %s",
+                        directory));
+            }
+            checkOwner(directory);
+            if (!attributes.permissions().equals(PosixFilePermissions.fromString("rwx------"))) {
+                throw new IOException(String.format("Каталог доступен другим пользователям: %s", directory));
+            }
+        }
+        return directory.resolve("daemon.sock");
+    }
+
+    private static boolean isListening(UnixDomainSocketAddress address) {
+        try (SocketChannel probe = SocketChannel.open(address)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Возвращает путь к файлу сокета.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Останавливает приём соединений и удаляет файл сокета. Открытые
+     * соединения дообслуживаются до закрытия клиентом.
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        Files.deleteIfExists(path);
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                SocketChannel client = server.accept();
+                Thread.ofVirtual().name("daemon-connection").start(() -> serve(client));
+            }
+        } catch (ClosedChannelException e) {
+            // Демон остановлен
+        } catch (IOException e) {
+            System.err.println("Ошибка демона: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Обслуживает одно соединение: строка запроса — строка ответа.
+     */
+    private static void serve(SocketChannel client) {
+        LineEvaluator evaluator = new LineEvaluator();
+        StringBuilder response = new StringBuilder();
+        try (client;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(Channels.newWriter(client, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                response.setLength(0);
+                if (!line.isBlank()) {
+                    try {
+                        NumberFormatter.format(evaluator.evaluate(line), response);
+                    } catch (RuntimeException e) {
+                        response.append(LineEvaluator.ERROR_PREFIX).append(e.getMessage());
+                    }
+                }
+                out.append(response).append('\n');
+                // Пачку запросов подряд отвечаем одной записью
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // Клиент закрыл соединение
+        }
+    }
+
+    /**
+     * Отправляет строки демону и печатает ответы.
+     *
+     * @param path  путь к файлу сокета
+     * @param lines строки запросов
+     * @param out   приёмник ответов
+     * @return {@code true}, если ни один ответ не содержит ошибки
+     * @throws IOException если демон недоступен или сокет принадлежит
+     *                     другому пользователю
+     */
+    static boolean query(Path path, Iterable<String> lines, PrintStream out) throws IOException {
+        checkOwner(path);
+        boolean success = true;
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(path));
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+                Writer requests = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8))) {
+            for (String line : lines) {
+                requests.append(line).append('\n');
+                requests.flush();
+                String response = in.readLine();
+                if (response == null) {
+                    throw new IOException("Демон закрыл соединение");
+                }
+                success &= !response.startsWith(LineEvaluator.ERROR_PREFIX);
+                out.println(response);
+            }
+        }
+        return success;
+    }
+
+    public static void main(String[] args) {
+        Path path = null;
+        boolean client = false;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("--")) {
+            switch (args[first]) {
+                case "--client" -> client = true;
+                case "--socket" -> {
+                    if (++first >= args.length) {
+                        usage();
+                    }
+                    path = Path.of(args[first]);
+                }
+                default -> usage();
+            }
+            first++;
+        }
+        if (path == null) {
+            try {
+                path = defaultSocket();
+            } catch (IOException e) {
+                System.err.println("Ошибка: " + e.getMessage());
+                System.exit(BatchCalculator.EXIT_FAILURE);
+                return;
+            }
+        }
+
+        if (!client) {
+            if (first < args.length) {
+                usage();
+            }
+            CalculatorDaemon daemon;
+            try {
+                daemon = start(path);
+            } catch (IOException e) {
+                System.err.println("Ошибка: " + e.getMessage());
+                System.exit(BatchCalculator.EXIT_FAILURE);
+                return;
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    daemon.close();
+                } catch (IOException e) {
+                    // Файл сокета удалит следующий запуск
+                }
+            }));
+            System.err.println("Демон вычислений слушает " + path);
+            return;
+        }
+
+        List<String> lines = first < args.length
+                ? Arrays.asList(args).subList(first, args.length)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)).lines().toList();
+        try {
+            System.exit(query(path, lines, System.out) ? BatchCalculator.EXIT_OK : BatchCalculator.EXIT_LINE_ERRORS);
+        } catch (IOException e) {
+            System.err.println("Демон недоступен: " + e.getMessage());
+            System.exit(BatchCalculator.EXIT_FAILURE);
+        }
+    }
+
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(BatchCalculator.EXIT_FAILURE);
+    }
+}
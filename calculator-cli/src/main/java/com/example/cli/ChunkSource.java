@@ -0,0 +1,49 @@
+package com.example.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Источник входных данных, нарезанных на куски из целых строк.
+ * <p>
+ * Куски обрабатываются независимо и параллельно, поэтому строка никогда не
+ * разрезается между двумя кусками. Последняя строка может не заканчиваться
+ * переводом строки.
+ * </p>
+ */
+interface ChunkSource extends Closeable {
+
+    /** Желаемый размер куска, байт; кусок может быть больше на одну строку. */
+    int CHUNK_SIZE = 256 * 1024;
+
+    /**
+     * Возвращает следующий кусок.
+     *
+     * @return байты одной или нескольких целых строк или {@code null}, если
+     *         данные закончились
+     * @throws IOException при ошибке чтения
+     */
+    ByteBuffer next() throws IOException;
+
+    /**
+     * Открывает файл, отображая его в память.
+     *
+     * @param file путь к файлу
+     * @throws IOException если файл не удаётся открыть
+     */
+    static ChunkSource open(Path file) throws IOException {
+        return new MappedChunkSource(file);
+    }
+
+    /**
+     * Читает поток, например стандартный ввод.
+     *
+     * @param in входной поток; закрывается вместе с источником
+     */
+    static ChunkSource of(InputStream in) {
+        return new StreamChunkSource(in);
+    }
+}
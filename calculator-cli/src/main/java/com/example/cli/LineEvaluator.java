@@ -0,0 +1,166 @@
+package com.example.cli;
+
+import com.example.expression.CompiledExpression;
+import com.example.util.NumberFormatter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Разбирает, вычисляет и форматирует строки одного куска.
+ * <p>
+ * Строка имеет вид {@code выражение[; имя=значение]...}, например
+ * {@code x^2 + y; x=3; y=4}. Значения переменных — числа. Результат строки —
+ * отформатированное число или {@code ошибка: сообщение}; пустая строка
+ * остаётся пустой. Выражения компилируются через общий
+ * {@link com.example.expression.ExpressionCache}, поэтому повторяющиеся
+ * выражения с разными значениями переменных разбираются один раз.
+ * </p>
+ * <p>
+ * Экземпляр не потокобезопасен: у каждого рабочего потока свой.
+ * </p>
+ */
+final class LineEvaluator {
+
+    /** Префикс результата строки с ошибкой. */
+    static final String ERROR_PREFIX = "ошибка: ";
+
+    private double[] values = new double[8];
+
+    /** Номер строки, в которой слоту последний раз присвоено значение. */
+    private long[] assignedAt = new long[8];
+    private long lineNumber;
+
+    private byte[] input = new byte[0];
+
+    /**
+     * Обрабатывает кусок.
+     *
+     * @param chunk   байты целых строк в UTF-8
+     * @param summary счётчики, куда добавляются строки куска
+     * @return результаты строк куска в UTF-8, по одной строке на входную
+     */
+    byte[] evaluate(ByteBuffer chunk, BatchSummary summary) {
+        int length = chunk.remaining();
+        summary.recordBytes(length);
+        byte[] bytes;
+        int offset;
+        if (chunk.hasArray()) {
+            bytes = chunk.array();
+            offset = chunk.arrayOffset() + chunk.position();
+        } else {
+            if (input.length < length) {
+                input = new byte[length];
+            }
+            chunk.get(chunk.position(), input, 0, length);
+            bytes = input;
+            offset = 0;
+        }
+
+        StringBuilder out = new StringBuilder(length);
+        int end = offset + length;
+        int start = offset;
+        while (start < end) {
+            int newline = start;
+            while (newline < end && bytes[newline] != '\n') {
+                newline++;
+            }
+            int lineEnd = newline > start && bytes[newline - 1] == '\r' ? newline - 1 : newline;
+            String line = new String(bytes, start, lineEnd - start, StandardCharsets.UTF_8);
+            evaluateLine(line, out, summary);
+            out.append('\n');
+            start = newline + 1;
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void evaluateLine(String line, StringBuilder out, BatchSummary summary) {
+        if (line.isBlank()) {
+            summary.recordBlank();
+            return;
+        }
+        try {
+            double value = evaluate(line);
+            NumberFormatter.format(value, out);
+            summary.recordResult();
+        } catch (RuntimeException e) {
+            out.append(ERROR_PREFIX).append(e.getMessage());
+            summary.recordError(e);
+        }
+    }
+
+    /**
+     * Вычисляет одну строку с привязками переменных.
+     *
+     * @throws IllegalArgumentException при ошибках синтаксиса, привязок или
+     *                                  вычисления
+     * @throws ArithmeticException      при арифметических ошибках
+     */
+    double evaluate(String line) {
+        lineNumber++;
+        int separator = line.indexOf(';');
+        String expression = separator < 0 ? line : line.substring(0, separator);
+        CompiledExpression compiled = CompiledExpression.compile(expression.strip());
+
+        int count = compiled.getVariableNames().size();
+        if (values.length < count) {
+            values = new double[count];
+            assignedAt = new long[count];
+        }
+        int assigned = 0;
+        while (separator >= 0) {
+            int next = line.indexOf(';', separator + 1);
+            String binding = (next < 0 ? line.substring(separator + 1) : line.substring(separator + 1, next)).strip();
+            separator = next;
+            if (binding.isEmpty()) {
+                continue;
+            }
+
+            int equals = binding.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException(
+                        String.format("Ожидается привязка вида имя=значение: '%s'", binding));
+            }
+            String name = binding.substring(0, equals).strip();
+            double value = parseValue(name, binding.substring(equals + 1).strip());
+            // Переменные, которых нет в выражении, игнорируются, как и в evaluate(Map)
+            int slot = compiled.getVariableIndex(name);
+            if (slot >= 0) {
+                if (assignedAt[slot] != lineNumber) {
+                    assignedAt[slot] = lineNumber;
+                    assigned++;
+                }
+                values[slot] = value;
+            }
+        }
+
+        if (assigned < count) {
+            // Сообщение о незаданной переменной формирует сам вычислитель
+            return compiled.evaluate(boundValues(compiled));
+        }
+        return compiled.evaluate(values);
+    }
+
+    private Map<String, Double> boundValues(CompiledExpression compiled) {
+        Map<String, Double> bound = new HashMap<>();
+        List<String> names = compiled.getVariableNames();
+        for (int slot = 0; slot < names.size(); slot++) {
+            if (assignedAt[slot] == lineNumber) {
+                bound.put(names.get(slot), values[slot]);
+            }
+        }
+        return bound;
+    }
+
+    private static double parseValue(String name, String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    String.format("Некорректное значение переменной '%s': '%s'", name, text));
+        }
+    }
+}
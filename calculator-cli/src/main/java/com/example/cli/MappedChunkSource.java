@@ -0,0 +1,92 @@
+package com.example.cli;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Файл, отображённый в память окнами.
+ * <p>
+ * Одно отображение ограничено 2 ГБ, поэтому файл отображается окнами по
+ * {@value #WINDOW_SIZE} байт, каждое из которых заканчивается на границе
+ * строки. Куски — срезы окна, байты не копируются.
+ * </p>
+ */
+final class MappedChunkSource implements ChunkSource {
+
+    /** Размер окна отображения; строка не может быть длиннее окна. */
+    static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+
+    /** Смещение текущего окна в файле. */
+    private long windowStart;
+    private MappedByteBuffer window;
+    private int position;
+
+    MappedChunkSource(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    @Override
+    public ByteBuffer next() throws IOException {
+        if (window == null || position == window.limit()) {
+            long start = window == null ? 0 : windowStart + position;
+            if (start >= size) {
+                return null;
+            }
+            mapWindow(start);
+        }
+
+        int limit = window.limit();
+        int end = Math.min(position + CHUNK_SIZE, limit);
+        if (end < limit) {
+            // Кусок заканчивается на последнем переводе строки, а если
+            // строка длиннее куска — на первом после неё или на конце окна,
+            // если последняя строка файла не завершена переводом строки
+            int newline = end - 1;
+            while (newline >= position && window.get(newline) != '\n') {
+                newline--;
+            }
+            if (newline < position) {
+                newline = end;
+                while (newline < limit && window.get(newline) != '\n') {
+                    newline++;
+                }
+            }
+            end = Math.min(newline + 1, limit);
+        }
+
+        ByteBuffer chunk = window.slice(position, end - position);
+        position = end;
+        return chunk;
+    }
+
+    private void mapWindow(long start) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+        windowStart = start;
+        position = 0;
+
+        int limit = window.capacity();
+        if (start + limit < size) {
+            while (limit > 0 && window.get(limit - 1) != '\n') {
+                limit--;
+            }
+            if (limit == 0) {
+                throw new IOException(
+                        String.format("Строка со смещения %d длиннее %d байт", start, WINDOW_SIZE));
+            }
+            window.limit(limit);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
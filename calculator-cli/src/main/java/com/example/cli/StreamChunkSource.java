@@ -0,0 +1,61 @@
+package com.example.cli;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Поток, прочитанный кусками по {@value ChunkSource#CHUNK_SIZE} байт.
+ * <p>
+ * Неполная строка в конце прочитанного блока переносится в начало
+ * следующего куска. Если строка не помещается в блок, блок растёт.
+ * </p>
+ */
+final class StreamChunkSource implements ChunkSource {
+
+    private final InputStream in;
+
+    /** Начало строки, не поместившейся в предыдущий кусок. */
+    private byte[] carry = new byte[0];
+    private boolean finished;
+
+    StreamChunkSource(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public ByteBuffer next() throws IOException {
+        if (finished) {
+            return null;
+        }
+
+        byte[] buffer = Arrays.copyOf(carry, Math.max(CHUNK_SIZE, 2 * carry.length));
+        int length = carry.length;
+        while (true) {
+            int read = in.readNBytes(buffer, length, buffer.length - length);
+            length += read;
+            if (length < buffer.length) {
+                // Поток закончился
+                finished = true;
+                carry = new byte[0];
+                return length == 0 ? null : ByteBuffer.wrap(buffer, 0, length);
+            }
+
+            int newline = length - 1;
+            while (newline >= 0 && buffer[newline] != '\n') {
+                newline--;
+            }
+            if (newline >= 0) {
+                carry = Arrays.copyOfRange(buffer, newline + 1, length);
+                return ByteBuffer.wrap(buffer, 0, newline + 1);
+            }
+            buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Пакетное вычисление выражений из командной строки.
+ */
+module com.example.cli {
+    requires com.example.core;
+}
@@ -0,0 +1,32 @@
+package com.example.expression;
+
+/**
+ * Ошибка параллельного пакетного вычисления.
+ * <p>
+ * Сообщает номер первой ошибочной строки; исходное исключение
+ * ({@link IllegalArgumentException} или {@link ArithmeticException})
+ * доступно через {@link #getCause()}.
+ * </p>
+ *
+ * @see CompiledExpression#evaluateBatchParallel(double[][], double[])
+ */
+public class BatchEvaluationException extends RuntimeException {
+
+    private final int row;
+
+    /**
+     * @param row   номер ошибочной строки
+     * @param cause исключение, брошенное при вычислении строки
+     */
+    public BatchEvaluationException(int row, RuntimeException cause) {
+        super(String.format("Ошибка в строке %d: %s", row, cause.getMessage()), cause);
+        this.row = row;
+    }
+
+    /**
+     * Возвращает номер ошибочной строки.
+     */
+    public int getRow() {
+        return row;
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.expression;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Поколоночное вычисление программы для множества строк.
+ * <p>
+ * Вместо того чтобы интерпретировать всю программу для каждой строки,
+ * вычислитель выполняет каждую инструкцию сразу над блоком из
+ * {@value #BLOCK_SIZE} строк. Стоимость разбора инструкции делится на весь
+ * блок, а внутренние циклы работают с последовательными массивами, которые
+ * помещаются в кэш процессора. Арифметика и встроенные {@code abs},
+ * {@code sqrt}, {@code min}, {@code max} выполняются через
+ * {@link ColumnKernels}, при наличии Vector API — над векторными регистрами.
+ * </p>
+ * <p>
+ * Семантика совпадает с последовательным вычислением строк по одной: если в
+ * блоке возникает ошибка, блок пересчитывается построчно, строки до ошибочной
+ * записываются в результат, а исключение первой ошибочной строки
+ * пробрасывается без изменений.
+ * </p>
+ * <p>
+ * Экземпляр хранит рабочие буферы и не потокобезопасен.
+ * </p>
+ */
+final class BatchEvaluator {
+
+    /** Количество строк, обрабатываемых одной инструкцией за раз. */
+    static final int BLOCK_SIZE = 256;
+
+    private static final ExpressionEvaluator.Definition ABS = ExpressionDefinitions.FUNCTIONS.get("abs");
+    private static final ExpressionEvaluator.Definition SQRT = ExpressionDefinitions.FUNCTIONS.get("sqrt");
+    private static final ExpressionEvaluator.Definition ROOT = ExpressionDefinitions.FUNCTIONS.get("√");
+    private static final ExpressionEvaluator.Definition MIN = ExpressionDefinitions.FUNCTIONS.get("min");
+    private static final ExpressionEvaluator.Definition MAX = ExpressionDefinitions.FUNCTIONS.get("max");
+
+    private final Program program;
+    private final JitCompiler.JitFunction jit;
+    private final ColumnKernels kernels = ColumnKernels.INSTANCE;
+    private final double[][] stack;
+    private final double[] values;
+    private final double[] rowStack;
+
+    /** Строка, вычислявшаяся последней; после исключения — номер ошибочной строки. */
+    int row = -1;
+
+    BatchEvaluator(Program program) {
+        this(program, null);
+    }
+
+    /**
+     * @param program программа
+     * @param jit     скомпилированная программа или {@code null}; если задана,
+     *                строки вычисляются ею по одной
+     */
+    BatchEvaluator(Program program, JitCompiler.JitFunction jit) {
+        this.program = program;
+        this.jit = jit;
+        this.stack = new double[program.maxStackDepth][BLOCK_SIZE];
+        this.values = new double[program.variables.length];
+        this.rowStack = new double[program.maxStackDepth];
+    }
+
+    /**
+     * Вычисляет строки {@code [from, to)}.
+     *
+     * @param columns значения переменных: столбец на каждый слот программы
+     * @param out     массив результатов
+     * @param from    первая строка (включительно)
+     * @param to      последняя строка (не включительно)
+     */
+    void run(double[][] columns, double[] out, int from, int to) {
+        if (jit != null) {
+            for (row = from; row < to; row++) {
+                out[row] = jit.evaluate(gather(columns, row));
+            }
+            return;
+        }
+        for (int base = from; base < to; base += BLOCK_SIZE) {
+            int count = Math.min(BLOCK_SIZE, to - base);
+            try {
+                runBlock(columns, out, base, count);
+            } catch (RuntimeException e) {
+                // Найти первую ошибочную строку так же, как при построчном вычислении
+                runRows(columns, out, base, base + count);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Вычисляет строки по одной.
+     */
+    void runRows(double[][] columns, double[] out, int from, int to) {
+        for (row = from; row < to; row++) {
+            out[row] = program.run(gather(columns, row), rowStack);
+        }
+    }
+
+    /**
+     * Собирает значения переменных одной строки.
+     */
+    double[] gather(double[][] columns, int row) {
+        for (int slot = 0; slot < values.length; slot++) {
+            values[slot] = columns[slot][row];
+        }
+        return values;
+    }
+
+    private void runBlock(double[][] columns, double[] out, int base, int n) {
+        int[] code = program.code;
+        double[][] stack = this.stack;
+        int sp = 0;
+
+        for (int insn : code) {
+            int operand = insn >>> Program.OP_BITS;
+            switch (insn & Program.OP_MASK) {
+                case Program.CONST:
+                    Arrays.fill(stack[sp++], 0, n, program.constants[operand]);
+                    break;
+                case Program.VAR:
+                    System.arraycopy(columns[operand], base, stack[sp++], 0, n);
+                    break;
+                case Program.ADD: {
+                    double[] a = stack[sp - 2];
+                    double[] b = stack[--sp];
+                    kernels.add(a, b, n);
+                    break;
+                }
+                case Program.SUB: {
+                    double[] a = stack[sp - 2];
+                    double[] b = stack[--sp];
+                    kernels.subtract(a, b, n);
+                    break;
+                }
+                case Program.MUL: {
+                    double[] a = stack[sp - 2];
+                    double[] b = stack[--sp];
+                    kernels.multiply(a, b, n);
+                    break;
+                }
+                case Program.DIV: {
+                    double[] a = stack[sp - 2];
+                    double[] b = stack[--sp];
+                    kernels.divide(a, b, n);
+                    break;
+                }
+                case Program.POW: {
+                    double[] a = stack[sp - 2];
+                    double[] b = stack[--sp];
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.pow(a[i], b[i]);
+                    }
+                    break;
+                }
+                case Program.NEG:
+                    kernels.negate(stack[sp - 1], n);
+                    break;
+                case Program.CALL1: {
+                    ExpressionEvaluator.Definition target = program.targets[operand];
+                    double[] a = stack[sp - 1];
+                    if (target == ABS) {
+                        kernels.abs(a, n);
+                        break;
+                    }
+                    if (target == SQRT || target == ROOT) {
+                        kernels.sqrt(a, n);
+                        break;
+                    }
+                    DoubleUnaryOperator f = target.unary;
+                    for (int i = 0; i < n; i++) {
+                        a[i] = f.applyAsDouble(a[i]);
+                    }
+                    break;
+                }
+                case Program.CALL2: {
+                    ExpressionEvaluator.Definition target = program.targets[operand];
+                    double[] a = stack[sp - 2];
+                    double[] b = stack[--sp];
+                    if (target == MIN) {
+                        kernels.min(a, b, n);
+                        break;
+                    }
+                    if (target == MAX) {
+                        kernels.max(a, b, n);
+                        break;
+                    }
+                    DoubleBinaryOperator f = target.binary;
+                    for (int i = 0; i < n; i++) {
+                        a[i] = f.applyAsDouble(a[i], b[i]);
+                    }
+                    break;
+                }
+                default: {
+                    ExpressionEvaluator.Definition f = program.targets[operand];
+                    int first = sp - f.args;
+                    double[] args = new double[f.args];
+                    for (int i = 0; i < n; i++) {
+                        for (int k = 0; k < args.length; k++) {
+                            args[k] = stack[first + k][i];
+                        }
+                        stack[first][i] = f.apply(args);
+                    }
+                    sp = first + 1;
+                    break;
+                }
+            }
+        }
+
+        System.arraycopy(stack[0], 0, out, base, n);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.expression;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие JFR: поиск выражения в {@link ExpressionCache}.
+ * <p>
+ * При промахе длительность включает компиляцию. Записывается, только если
+ * поиск дольше порога (по умолчанию 1 мс): медленное попадание означает
+ * ожидание блокировки кэша.
+ * </p>
+ */
+@Name("com.example.calculator.CacheLookup")
+@Label("Поиск в кэше выражений")
+@Category({"Calculator", "Expression"})
+@Description("Попадание или промах кэша скомпилированных выражений")
+@Threshold("1 ms")
+final class CacheLookupEvent extends Event {
+
+    @Label("Выражение")
+    String expression;
+
+    @Label("Попадание")
+    boolean hit;
+
+    @Label("Размер кэша")
+    int size;
+}
@@ -0,0 +1,111 @@
+package com.example.expression;
+
+/**
+ * Поэлементные операции над столбцами для {@link BatchEvaluator}.
+ * <p>
+ * Базовая реализация — обычные скалярные циклы. Если в среде выполнения
+ * доступен модуль {@code jdk.incubator.vector}, используется
+ * {@link VectorColumnKernels}, выполняющая те же операции над векторными
+ * регистрами. Результаты обеих реализаций совпадают бит в бит, а ошибки
+ * (деление на ноль, корень из отрицательного числа) бросает скалярный код.
+ * </p>
+ * <p>
+ * Векторные операции можно отключить системным свойством
+ * {@code -Dcom.example.expression.vector=false}.
+ * </p>
+ */
+class ColumnKernels {
+
+    /** Реализация, выбранная для текущей среды выполнения. */
+    static final ColumnKernels INSTANCE = select();
+
+    private static ColumnKernels select() {
+        boolean enabled = Boolean.parseBoolean(System.getProperty("com.example.expression.vector", "true"));
+        if (!enabled || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return new ColumnKernels();
+        }
+        try {
+            // Класс загружается только при наличии модуля, иначе ссылки на DoubleVector не разрешатся
+            return (ColumnKernels) Class.forName("com.example.expression.VectorColumnKernels")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ColumnKernels();
+        }
+    }
+
+    /**
+     * Возвращает {@code true}, если операции выполняются над векторными регистрами.
+     */
+    boolean isVectorized() {
+        return false;
+    }
+
+    void add(double[] a, double[] b, int n) {
+        for (int i = 0; i < n; i++) {
+            a[i] = a[i] + b[i];
+        }
+    }
+
+    void subtract(double[] a, double[] b, int n) {
+        for (int i = 0; i < n; i++) {
+            a[i] = a[i] - b[i];
+        }
+    }
+
+    void multiply(double[] a, double[] b, int n) {
+        for (int i = 0; i < n; i++) {
+            a[i] = a[i] * b[i];
+        }
+    }
+
+    void divide(double[] a, double[] b, int n) {
+        divide(a, b, 0, n);
+    }
+
+    void negate(double[] a, int n) {
+        for (int i = 0; i < n; i++) {
+            a[i] = -a[i];
+        }
+    }
+
+    void abs(double[] a, int n) {
+        for (int i = 0; i < n; i++) {
+            a[i] = Math.abs(a[i]);
+        }
+    }
+
+    void sqrt(double[] a, int n) {
+        sqrt(a, 0, n);
+    }
+
+    void min(double[] a, double[] b, int n) {
+        for (int i = 0; i < n; i++) {
+            a[i] = Math.min(a[i], b[i]);
+        }
+    }
+
+    void max(double[] a, double[] b, int n) {
+        for (int i = 0; i < n; i++) {
+            a[i] = Math.max(a[i], b[i]);
+        }
+    }
+
+    /**
+     * Делит элементы {@code [from, n)} с проверкой делителя.
+     */
+    static void divide(double[] a, double[] b, int from, int n) {
+        for (int i = from; i < n; i++) {
+            a[i] = ExpressionDefinitions.divide(a[i], b[i]);
+        }
+    }
+
+    /**
+     * Извлекает корень из элементов {@code [from, n)} с проверкой знака.
+     */
+    static void sqrt(double[] a, int from, int n) {
+        for (int i = from; i < n; i++) {
+            a[i] = ExpressionDefinitions.sqrt(a[i]);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.expression;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие JFR: компиляция выражения — токенизация, разбор, оптимизация и
+ * построение программы, либо генерация байт-кода в {@link JitCompiler}.
+ * <p>
+ * Записывается, только если компиляция дольше порога (по умолчанию 1 мс).
+ * </p>
+ */
+@Name("com.example.calculator.Compile")
+@Label("Компиляция выражения")
+@Category({"Calculator", "Expression"})
+@Description("Разбор выражения в программу или генерация байт-кода")
+@Threshold("1 ms")
+final class CompileEvent extends Event {
+
+    @Label("Выражение")
+    String expression;
+
+    @Label("Байт-код")
+    @Description("Генерация байт-кода, а не разбор текста")
+    boolean jit;
+
+    @Label("Инструкций")
+    int instructions;
+
+    @Label("Ошибка")
+    @Description("Сообщение о синтаксической ошибке; пусто при успехе")
+    String error;
+}
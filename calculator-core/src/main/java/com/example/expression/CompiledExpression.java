@@ -0,0 +1,526 @@
+package com.example.expression;
+
+import com.example.metrics.Metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Скомпилированное математическое выражение.
+ * <p>
+ * Хранит результат токенизации и разбора (RPN), пониженный в компактную
+ * программу с пулом констант и привязанными функциями, поэтому одно и то же
+ * выражение можно вычислять многократно без повторного анализа строки и
+ * токенов. Экземпляры неизменяемы и потокобезопасны.
+ * </p>
+ * <p>
+ * Вычисление одного выражения учитывается в {@link Metrics#EVALUATE};
+ * пакетное вычисление не замеряется. Для Java Flight Recorder компиляция,
+ * медленное вычисление и ошибки вычисления записываются событиями
+ * {@code com.example.calculator.*} с текстом выражения.
+ * </p>
+ *
+ * <h3>Пример использования:</h3>
+ * <pre>
+ * CompiledExpression expr = CompiledExpression.compile("2 * x + 1");
+ * double a = expr.evaluate(Map.of("x", 1.0));  // 3.0
+ * double b = expr.evaluate(2.0);                // 5.0, значения по слотам
+ * </pre>
+ *
+ * @see ExpressionCache
+ */
+public final class CompiledExpression {
+
+    /** Общий токенизатор: таблица ключевых слов строится один раз. */
+    private static final ExpressionTokenizer TOKENIZER = new ExpressionTokenizer(
+            ExpressionDefinitions.FUNCTION_NAMES,
+            ExpressionDefinitions.CONSTANT_NAMES);
+
+    /** Общий вычислитель: не хранит состояния между вызовами. */
+    private static final ExpressionEvaluator EVALUATOR = ExpressionEvaluator.createDefault();
+
+    /** Общий оптимизатор: свёртка констант и упрощение тождеств. */
+    private static final ExpressionOptimizer OPTIMIZER = ExpressionOptimizer.createDefault();
+
+    /** Рабочий стек потока; растёт до максимальной глубины вычисленных выражений. */
+    private static final ThreadLocal<double[]> STACK = ThreadLocal.withInitial(() -> new double[16]);
+
+    /** Значения переменных потока для вычисления по карте имён. */
+    private static final ThreadLocal<double[]> VALUES = ThreadLocal.withInitial(() -> new double[16]);
+
+    private final String source;
+    private final List<Token> rpn;
+    private final Program program;
+    private final List<String> variableNames;
+    private final JitCompiler.JitFunction jit;
+
+    /** Версия выражения с байт-кодом, созданная при первом вызове {@link #withJit()}. */
+    private volatile CompiledExpression jitted;
+
+    private CompiledExpression(String source, List<Token> rpn, Program program, JitCompiler.JitFunction jit) {
+        this.source = source;
+        this.rpn = rpn;
+        this.program = program;
+        this.variableNames = List.of(program.variables);
+        this.jit = jit;
+    }
+
+    /**
+     * Возвращает скомпилированное выражение из общего кэша
+     * {@link ExpressionCache#shared()}, компилируя его при промахе.
+     *
+     * @param expression математическое выражение
+     * @return скомпилированное выражение
+     * @throws IllegalArgumentException при ошибках синтаксиса
+     */
+    public static CompiledExpression compile(String expression) {
+        return ExpressionCache.shared().get(expression);
+    }
+
+    /**
+     * Компилирует выражение из готового списка токенов, минуя токенизацию.
+     * <p>
+     * Подходит для источников, которые уже знают структуру выражения,
+     * например для ввода с кнопок калькулятора. Кэш не используется: один и
+     * тот же текст может соответствовать разным спискам токенов. Исходным
+     * текстом выражения считается конкатенация значений токенов.
+     * </p>
+     *
+     * @param tokens токены в порядке записи
+     * @return скомпилированное выражение
+     * @throws IllegalArgumentException при ошибках синтаксиса
+     */
+    public static CompiledExpression compile(List<Token> tokens) {
+        CompileEvent event = new CompileEvent();
+        event.begin();
+        StringBuilder source = new StringBuilder();
+        for (Token token : tokens) {
+            source.append(token.getValue());
+        }
+        try {
+            return compiled(event, build(source.toString(), tokens));
+        } catch (RuntimeException e) {
+            compileFailed(event, source.toString(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Токенизирует и разбирает выражение в обход кэша.
+     */
+    static CompiledExpression parse(String expression) {
+        CompileEvent event = new CompileEvent();
+        event.begin();
+        try {
+            return compiled(event, build(expression, TOKENIZER.tokenize(expression)));
+        } catch (RuntimeException e) {
+            compileFailed(event, expression, e);
+            throw e;
+        }
+    }
+
+    private static CompiledExpression build(String source, List<Token> tokens) {
+        List<Token> rpn = new PrattParser(ExpressionDefinitions.FUNCTIONS).parse(tokens);
+        return new CompiledExpression(source, List.copyOf(rpn), EVALUATOR.compile(OPTIMIZER.optimize(rpn)), null);
+    }
+
+    private static CompiledExpression compiled(CompileEvent event, CompiledExpression expression) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.expression = expression.source;
+            event.jit = expression.jit != null;
+            event.instructions = expression.program.size();
+            event.commit();
+        }
+        return expression;
+    }
+
+    private static void compileFailed(CompileEvent event, String source, RuntimeException error) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.expression = source;
+            event.error = error.getMessage();
+            event.commit();
+        }
+    }
+
+    /**
+     * Вычисляет выражение без переменных.
+     *
+     * @return результат вычисления
+     * @throws IllegalArgumentException при ошибках вычисления
+     */
+    public double evaluate() {
+        return evaluate(Map.of());
+    }
+
+    /**
+     * Вычисляет выражение с заданными значениями переменных.
+     * <p>
+     * Удобная обёртка над {@link #evaluate(double...)}: значения раскладываются
+     * по слотам в порядке {@link #getVariableNames()}.
+     * </p>
+     *
+     * @param variables карта значений переменных
+     * @return результат вычисления
+     * @throws IllegalArgumentException при ошибках вычисления
+     */
+    public double evaluate(Map<String, Double> variables) {
+        return evaluate(variables, stack());
+    }
+
+    /**
+     * Вычисляет выражение, используя переданный рабочий стек.
+     *
+     * @param variables карта значений переменных
+     * @param stack     рабочий стек длиной не меньше {@link #getMaxStackDepth()}
+     * @return результат вычисления
+     * @throws IllegalArgumentException при ошибках вычисления
+     */
+    public double evaluate(Map<String, Double> variables, double[] stack) {
+        return measured(variables, null, stack);
+    }
+
+    private double evaluateNamed(Map<String, Double> variables, double[] stack) {
+        String[] names = program.variables;
+        double[] values = VALUES.get();
+        if (values.length < names.length) {
+            values = new double[names.length];
+            VALUES.set(values);
+        }
+        for (int slot = 0; slot < names.length; slot++) {
+            Double value = variables.get(names[slot]);
+            if (value == null) {
+                return program.runMissing(values, stack, slot);
+            }
+            values[slot] = value;
+        }
+        return jit != null ? jit.evaluate(values) : program.run(values, stack);
+    }
+
+    /**
+     * Вычисляет выражение по значениям переменных, заданным по индексам слотов.
+     * <p>
+     * Порядок слотов фиксирован и возвращается {@link #getVariableNames()}.
+     * Это самый быстрый способ многократного вычисления с разными значениями:
+     * нет поиска по именам и упаковки значений.
+     * </p>
+     *
+     * @param values значения переменных в порядке {@link #getVariableNames()}
+     * @return результат вычисления
+     * @throws IllegalArgumentException при ошибках вычисления или если
+     *                                  значений меньше, чем переменных
+     */
+    public double evaluate(double... values) {
+        return evaluate(values, stack());
+    }
+
+    /**
+     * Вычисляет выражение по значениям слотов, используя переданный рабочий стек.
+     *
+     * @param values значения переменных в порядке {@link #getVariableNames()}
+     * @param stack  рабочий стек длиной не меньше {@link #getMaxStackDepth()}
+     * @return результат вычисления
+     * @throws IllegalArgumentException при ошибках вычисления или если
+     *                                  значений меньше, чем переменных
+     */
+    public double evaluate(double[] values, double[] stack) {
+        return measured(null, values, stack);
+    }
+
+    /**
+     * Единая точка замера вычисления: метрики {@link Metrics#EVALUATE} и
+     * события JFR. Задан ровно один из аргументов {@code variables} и
+     * {@code values}; после встраивания в вызывающий метод проверка
+     * исчезает.
+     */
+    private double measured(Map<String, Double> variables, double[] values, double[] stack) {
+        EvaluateEvent event = new EvaluateEvent();
+        if (!Metrics.ENABLED && !event.isEnabled()) {
+            return run(variables, values, stack);
+        }
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        event.begin();
+        try {
+            double result = run(variables, values, stack);
+            evaluated(event, start);
+            return result;
+        } catch (RuntimeException e) {
+            evaluationFailed(e);
+            throw e;
+        }
+    }
+
+    private double run(Map<String, Double> variables, double[] values, double[] stack) {
+        return variables != null ? evaluateNamed(variables, stack) : evaluateSlots(values, stack);
+    }
+
+    private void evaluated(EvaluateEvent event, long start) {
+        if (Metrics.ENABLED) {
+            Metrics.EVALUATE.record(start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.expression = source;
+            event.instructions = program.size();
+            event.variables = program.variables.length;
+            event.jit = jit != null;
+            event.commit();
+        }
+    }
+
+    private void evaluationFailed(RuntimeException error) {
+        if (Metrics.ENABLED) {
+            Metrics.EVALUATE.failed(error);
+        }
+        EvaluationFailureEvent event = new EvaluationFailureEvent();
+        if (event.shouldCommit()) {
+            event.expression = source;
+            event.exception = error.getClass();
+            event.message = error.getMessage();
+            event.commit();
+        }
+    }
+
+    private double evaluateSlots(double[] values, double[] stack) {
+        if (values.length < program.variables.length) {
+            throw new IllegalArgumentException(
+                    String.format("Ожидается значений переменных: %d, получено: %d",
+                            program.variables.length, values.length));
+        }
+        return jit != null ? jit.evaluate(values) : program.run(values, stack);
+    }
+
+    /**
+     * Вычисляет выражение для каждой строки набора столбцов.
+     * <p>
+     * Количество строк равно длине {@code out}. Каждая инструкция выполняется
+     * сразу над блоком строк (см. {@link BatchEvaluator}), что заметно
+     * быстрее построчного вызова {@link #evaluate(Map)}. При ошибке строки до
+     * ошибочной уже записаны в {@code out}, а исключение совпадает с тем, что
+     * бросило бы построчное вычисление.
+     * </p>
+     *
+     * @param columns столбцы значений переменных по именам
+     * @param out     массив результатов
+     * @throws IllegalArgumentException при ошибках вычисления, если столбца
+     *                                  переменной нет или он короче {@code out}
+     */
+    public void evaluateBatch(Map<String, double[]> columns, double[] out) {
+        String[] names = program.variables;
+        double[][] slots = new double[names.length][];
+        for (int slot = 0; slot < names.length; slot++) {
+            slots[slot] = columns.get(names[slot]);
+            if (slots[slot] == null) {
+                if (out.length == 0) {
+                    return;
+                }
+                double[] values = new double[names.length];
+                for (int known = 0; known < slot; known++) {
+                    checkColumn(known, slots[known], out.length);
+                    values[known] = slots[known][0];
+                }
+                program.runMissing(values, stack(), slot);
+            }
+        }
+        evaluateBatch(slots, out, 0, out.length);
+    }
+
+    /**
+     * Вычисляет выражение для каждой строки столбцов, заданных по слотам.
+     *
+     * @param columns столбцы в порядке {@link #getVariableNames()}
+     * @param out     массив результатов; количество строк равно его длине
+     * @throws IllegalArgumentException при ошибках вычисления или если
+     *                                  столбцов меньше, чем переменных
+     */
+    public void evaluateBatch(double[][] columns, double[] out) {
+        evaluateBatch(columns, out, 0, out.length);
+    }
+
+    /**
+     * Вычисляет выражение для строк {@code [from, to)}.
+     *
+     * @param columns столбцы в порядке {@link #getVariableNames()}
+     * @param out     массив результатов
+     * @param from    первая строка (включительно)
+     * @param to      последняя строка (не включительно)
+     * @throws IllegalArgumentException при ошибках вычисления или если
+     *                                  столбцов меньше, чем переменных
+     */
+    public void evaluateBatch(double[][] columns, double[] out, int from, int to) {
+        checkBatch(columns, out, from, to);
+        new BatchEvaluator(program, jit).run(columns, out, from, to);
+    }
+
+    /**
+     * Вычисляет выражение для каждой строки столбцов на общем пуле
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * @see #evaluateBatchParallel(double[][], double[], Executor)
+     */
+    public void evaluateBatchParallel(double[][] columns, double[] out) {
+        evaluateBatchParallel(columns, out, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Вычисляет выражение для каждой строки столбцов на нескольких потоках.
+     * <p>
+     * Строки делятся на части, размер которых зависит от длины программы;
+     * каждая часть вычисляется как в {@link #evaluateBatch(double[][], double[])}.
+     * Имеет смысл для миллионов строк: на небольших наборах накладные
+     * расходы на задачи превышают выигрыш.
+     * </p>
+     *
+     * @param columns  столбцы в порядке {@link #getVariableNames()}
+     * @param out      массив результатов; количество строк равно его длине
+     * @param executor пул потоков; лучше всего {@link ForkJoinPool}
+     * @throws BatchEvaluationException при ошибке вычисления: содержит номер
+     *                                  первой ошибочной строки и исходное исключение
+     * @throws IllegalArgumentException если столбцов меньше, чем переменных,
+     *                                  или они короче {@code out}
+     */
+    public void evaluateBatchParallel(double[][] columns, double[] out, Executor executor) {
+        checkBatch(columns, out, 0, out.length);
+        new ParallelBatch(program, jit, columns, out).run(0, out.length, executor);
+    }
+
+    private void checkBatch(double[][] columns, double[] out, int from, int to) {
+        if (from < 0 || from > to || to > out.length) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Диапазон строк [%d, %d) вне массива результатов длиной %d",
+                            from, to, out.length));
+        }
+        if (columns.length < program.variables.length) {
+            throw new IllegalArgumentException(
+                    String.format("Ожидается столбцов переменных: %d, получено: %d",
+                            program.variables.length, columns.length));
+        }
+        for (int slot = 0; slot < program.variables.length; slot++) {
+            checkColumn(slot, columns[slot], to);
+        }
+    }
+
+    private void checkColumn(int slot, double[] column, int rows) {
+        if (column.length < rows) {
+            throw new IllegalArgumentException(
+                    String.format("Столбец переменной '%s' содержит %d строк, требуется %d",
+                            program.variables[slot], column.length, rows));
+        }
+    }
+
+    /**
+     * Вычисляет выражение, в котором значение переменной в слоте
+     * {@code missing} не задано, и сообщает первую возникшую ошибку.
+     */
+    double evaluateMissing(double[] values, int missing) {
+        try {
+            return program.runMissing(values, stack(), missing);
+        } catch (RuntimeException e) {
+            evaluationFailed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Возвращает имена переменных в порядке их слотов.
+     */
+    public List<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * Возвращает индекс слота переменной.
+     *
+     * @param name имя переменной
+     * @return индекс слота или {@code -1}, если переменная не используется
+     */
+    public int getVariableIndex(String name) {
+        Integer slot = program.slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Возвращает рабочий стек текущего потока достаточного размера.
+     */
+    private double[] stack() {
+        double[] stack = STACK.get();
+        if (stack.length < program.maxStackDepth) {
+            stack = new double[program.maxStackDepth];
+            STACK.set(stack);
+        }
+        return stack;
+    }
+
+    /**
+     * Возвращает версию выражения, вычисляемую скомпилированным байт-кодом.
+     * <p>
+     * Выражение компилируется в скрытый класс (см. {@link JitCompiler}),
+     * который JIT-компилятор HotSpot оптимизирует как обычный метод.
+     * Результаты и ошибки совпадают с интерпретатором. Компиляция занимает
+     * заметное время, поэтому её стоит включать только для горячих выражений;
+     * результат запоминается. Если выражение нельзя скомпилировать
+     * (например, оно использует пользовательские функции), возвращается
+     * {@code this}.
+     * </p>
+     *
+     * @return выражение с байт-кодом или {@code this}
+     */
+    public CompiledExpression withJit() {
+        if (jit != null) {
+            return this;
+        }
+        CompiledExpression result = jitted;
+        if (result == null) {
+            CompileEvent event = new CompileEvent();
+            event.begin();
+            JitCompiler.JitFunction function = JitCompiler.compile(program);
+            result = function != null ? compiled(event, new CompiledExpression(source, rpn, program, function)) : this;
+            jitted = result;
+        }
+        return result;
+    }
+
+    /**
+     * Проверяет, вычисляется ли выражение скомпилированным байт-кодом.
+     */
+    public boolean isJitCompiled() {
+        return jit != null;
+    }
+
+    /**
+     * Возвращает исходный текст выражения.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Возвращает неизменяемый список токенов в RPN в том виде, в каком его
+     * построил парсер (до оптимизации).
+     */
+    public List<Token> getRPN() {
+        return rpn;
+    }
+
+    /**
+     * Возвращает максимальную глубину стека при вычислении выражения.
+     */
+    public int getMaxStackDepth() {
+        return program.maxStackDepth;
+    }
+
+    /**
+     * Возвращает количество инструкций скомпилированной программы.
+     */
+    public int getInstructionCount() {
+        return program.size();
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledExpression{" + source + "}";
+    }
+}
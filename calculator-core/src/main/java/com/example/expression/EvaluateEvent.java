@@ -0,0 +1,37 @@
+package com.example.expression;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие JFR: вычисление скомпилированного выражения.
+ * <p>
+ * Записывается, только если вычисление дольше порога (по умолчанию
+ * 100 мкс) — обычное выражение вычисляется за десятки наносекунд.
+ * Пакетное вычисление не записывается.
+ * </p>
+ */
+@Name("com.example.calculator.Evaluate")
+@Label("Вычисление выражения")
+@Category({"Calculator", "Expression"})
+@Description("Вычисление одного скомпилированного выражения")
+@Threshold("100 us")
+final class EvaluateEvent extends Event {
+
+    @Label("Выражение")
+    String expression;
+
+    @Label("Инструкций")
+    int instructions;
+
+    @Label("Переменных")
+    int variables;
+
+    @Label("Байт-код")
+    @Description("Выражение вычислено байт-кодом, а не интерпретатором")
+    boolean jit;
+}
@@ -0,0 +1,29 @@
+package com.example.expression;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: ошибка вычисления скомпилированного выражения.
+ * <p>
+ * Порога нет: записывается каждая ошибка, пока событие включено.
+ * </p>
+ */
+@Name("com.example.calculator.EvaluationFailure")
+@Label("Ошибка вычисления")
+@Category({"Calculator", "Expression"})
+@Description("Исключение при вычислении скомпилированного выражения")
+final class EvaluationFailureEvent extends Event {
+
+    @Label("Выражение")
+    String expression;
+
+    @Label("Тип исключения")
+    Class<?> exception;
+
+    @Label("Сообщение")
+    String message;
+}
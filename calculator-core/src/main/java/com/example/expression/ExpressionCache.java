@@ -0,0 +1,152 @@
+package com.example.expression;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ограниченный по размеру LRU-кэш скомпилированных выражений.
+ * <p>
+ * Ключом служит исходный текст выражения. При попадании повторное выражение
+ * не токенизируется и не разбирается. Кэш потокобезопасен: компиляция при
+ * промахе выполняется вне блокировки, поэтому медленное выражение не
+ * задерживает остальные потоки. Медленные поиски записываются событием
+ * JFR {@code com.example.calculator.CacheLookup}.
+ * </p>
+ *
+ * <p>
+ * Размер общего кэша задаётся системным свойством
+ * {@code com.example.expression.cacheSize} (по умолчанию
+ * {@value #DEFAULT_CAPACITY}).
+ * </p>
+ */
+public final class ExpressionCache {
+
+    /** Ёмкость общего кэша по умолчанию. */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final ExpressionCache SHARED = new ExpressionCache(
+            Integer.getInteger("com.example.expression.cacheSize", DEFAULT_CAPACITY));
+
+    private final int capacity;
+    private final Map<String, CompiledExpression> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Создаёт кэш заданной ёмкости.
+     *
+     * @param capacity максимальное количество выражений в кэше
+     * @throws IllegalArgumentException если ёмкость не положительна
+     */
+    public ExpressionCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Ёмкость кэша должна быть положительной: %d", capacity));
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest) {
+                if (size() > ExpressionCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Возвращает общий для приложения кэш.
+     */
+    public static ExpressionCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Возвращает скомпилированное выражение, компилируя его при промахе.
+     *
+     * @param expression математическое выражение
+     * @return скомпилированное выражение
+     * @throws IllegalArgumentException при ошибках синтаксиса (такие
+     *                                  выражения не кэшируются)
+     */
+    public CompiledExpression get(String expression) {
+        CacheLookupEvent event = new CacheLookupEvent();
+        event.begin();
+        synchronized (this) {
+            CompiledExpression cached = entries.get(expression);
+            if (cached != null) {
+                hits++;
+                return looked(event, expression, true, cached);
+            }
+            misses++;
+        }
+
+        CompiledExpression compiled = CompiledExpression.parse(expression);
+
+        synchronized (this) {
+            CompiledExpression existing = entries.putIfAbsent(expression, compiled);
+            return looked(event, expression, false, existing != null ? existing : compiled);
+        }
+    }
+
+    private CompiledExpression looked(CacheLookupEvent event, String expression, boolean hit,
+            CompiledExpression result) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.expression = expression;
+            event.hit = hit;
+            event.size = entries.size();
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Удаляет все выражения из кэша. Счётчики не сбрасываются.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Возвращает текущее количество выражений в кэше.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Возвращает количество попаданий в кэш.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Возвращает количество промахов (компиляций).
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Возвращает количество вытесненных выражений.
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ExpressionCache{size=%d/%d, hits=%d, misses=%d, evictions=%d}",
+                entries.size(), capacity, hits, misses, evictions);
+    }
+}
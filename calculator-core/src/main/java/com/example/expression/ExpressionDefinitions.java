@@ -8,6 +8,8 @@ import java.util.Map;
 /**
  * Central registry of supported math tokens: constants, functions, operators and their precedence.
  * Keeping them in one place avoids string literals being scattered across tokenizer/parser/evaluator.
+ * Built-ins are registered with arity-specialised primitive implementations; the checked ones
+ * (division, cot, logarithms, sqrt) are plain static methods so other backends can call them directly.
  */
 public final class ExpressionDefinitions {
 
@@ -31,73 +33,37 @@ public final class ExpressionDefinitions {
 
         Map<String, ExpressionEvaluator.FunctionDef> functions = new LinkedHashMap<>();
         // Trigonometric
-        functions.put("sin", new ExpressionEvaluator.FunctionDef(1, args -> Math.sin(args[0])));
-        functions.put("cos", new ExpressionEvaluator.FunctionDef(1, args -> Math.cos(args[0])));
-        functions.put("tan", new ExpressionEvaluator.FunctionDef(1, args -> Math.tan(args[0])));
-        functions.put("cot", new ExpressionEvaluator.FunctionDef(1, args -> {
-            double tan = Math.tan(args[0]);
-            if (Math.abs(tan) < 1e-10) {
-                throw new ArithmeticException("Деление на ноль при вычислении котангенса");
-            }
-            return 1.0 / tan;
-        }));
+        functions.put("sin", new ExpressionEvaluator.FunctionDef(Math::sin));
+        functions.put("cos", new ExpressionEvaluator.FunctionDef(Math::cos));
+        functions.put("tan", new ExpressionEvaluator.FunctionDef(Math::tan));
+        functions.put("cot", new ExpressionEvaluator.FunctionDef(ExpressionDefinitions::cot));
 
         // Logarithms
-        functions.put("ln", new ExpressionEvaluator.FunctionDef(1, args -> {
-            if (args[0] <= 0) {
-                throw new IllegalArgumentException("Логарифм определён только для положительных чисел");
-            }
-            return Math.log(args[0]);
-        }));
-        functions.put("log", new ExpressionEvaluator.FunctionDef(1, args -> {
-            if (args[0] <= 0) {
-                throw new IllegalArgumentException("Логарифм определён только для положительных чисел");
-            }
-            return Math.log10(args[0]);
-        }));
+        functions.put("ln", new ExpressionEvaluator.FunctionDef(ExpressionDefinitions::ln));
+        functions.put("log", new ExpressionEvaluator.FunctionDef(ExpressionDefinitions::log));
 
         // Algebraic
-        functions.put("sqrt", new ExpressionEvaluator.FunctionDef(1, args -> {
-            if (args[0] < 0) {
-                throw new IllegalArgumentException("Корень из отрицательного числа не определён");
-            }
-            return Math.sqrt(args[0]);
-        }));
-        functions.put("√", new ExpressionEvaluator.FunctionDef(1, args -> {
-            if (args[0] < 0) {
-                throw new IllegalArgumentException("Корень из отрицательного числа не определён");
-            }
-            return Math.sqrt(args[0]);
-        }));
-        functions.put("abs", new ExpressionEvaluator.FunctionDef(1, args -> Math.abs(args[0])));
-        functions.put("exp", new ExpressionEvaluator.FunctionDef(1, args -> Math.exp(args[0])));
+        functions.put("sqrt", new ExpressionEvaluator.FunctionDef(ExpressionDefinitions::sqrt));
+        functions.put("√", new ExpressionEvaluator.FunctionDef(ExpressionDefinitions::sqrt));
+        functions.put("abs", new ExpressionEvaluator.FunctionDef(Math::abs));
+        functions.put("exp", new ExpressionEvaluator.FunctionDef(Math::exp));
 
         // Multi-argument
-        functions.put("max", new ExpressionEvaluator.FunctionDef(2, args -> Math.max(args[0], args[1])));
-        functions.put("min", new ExpressionEvaluator.FunctionDef(2, args -> Math.min(args[0], args[1])));
+        functions.put("max", new ExpressionEvaluator.FunctionDef(Math::max));
+        functions.put("min", new ExpressionEvaluator.FunctionDef(Math::min));
 
         FUNCTIONS = Collections.unmodifiableMap(functions);
         FUNCTION_NAMES = List.copyOf(functions.keySet());
 
         Map<String, ExpressionEvaluator.OperatorDef> operators = new LinkedHashMap<>();
-        operators.put("+", new ExpressionEvaluator.OperatorDef(2, args -> args[0] + args[1]));
-        operators.put("-", new ExpressionEvaluator.OperatorDef(2, args -> args[0] - args[1]));
-        operators.put("*", new ExpressionEvaluator.OperatorDef(2, args -> args[0] * args[1]));
-        operators.put("×", new ExpressionEvaluator.OperatorDef(2, args -> args[0] * args[1]));
-        operators.put("/", new ExpressionEvaluator.OperatorDef(2, args -> {
-            if (Math.abs(args[1]) < 1e-10) {
-                throw new ArithmeticException("Деление на ноль");
-            }
-            return args[0] / args[1];
-        }));
-        operators.put("÷", new ExpressionEvaluator.OperatorDef(2, args -> {
-            if (Math.abs(args[1]) < 1e-10) {
-                throw new ArithmeticException("Деление на ноль");
-            }
-            return args[0] / args[1];
-        }));
-        operators.put("^", new ExpressionEvaluator.OperatorDef(2, args -> Math.pow(args[0], args[1])));
-        operators.put("~", new ExpressionEvaluator.OperatorDef(1, args -> -args[0])); // unary minus
+        operators.put("+", new ExpressionEvaluator.OperatorDef((a, b) -> a + b));
+        operators.put("-", new ExpressionEvaluator.OperatorDef((a, b) -> a - b));
+        operators.put("*", new ExpressionEvaluator.OperatorDef((a, b) -> a * b));
+        operators.put("×", operators.get("*"));
+        operators.put("/", new ExpressionEvaluator.OperatorDef(ExpressionDefinitions::divide));
+        operators.put("÷", operators.get("/"));
+        operators.put("^", new ExpressionEvaluator.OperatorDef(Math::pow));
+        operators.put("~", new ExpressionEvaluator.OperatorDef(a -> -a)); // unary minus
         OPERATORS = Collections.unmodifiableMap(operators);
 
         Map<String, Integer> precedence = new LinkedHashMap<>();
@@ -111,4 +77,43 @@ public final class ExpressionDefinitions {
         precedence.put("~", 40);
         OPERATOR_PRECEDENCE = Collections.unmodifiableMap(precedence);
     }
+
+    /**
+     * Division that rejects divisors too close to zero.
+     */
+    public static double divide(double a, double b) {
+        if (Math.abs(b) < 1e-10) {
+            throw new ArithmeticException("Деление на ноль");
+        }
+        return a / b;
+    }
+
+    public static double cot(double x) {
+        double tan = Math.tan(x);
+        if (Math.abs(tan) < 1e-10) {
+            throw new ArithmeticException("Деление на ноль при вычислении котангенса");
+        }
+        return 1.0 / tan;
+    }
+
+    public static double ln(double x) {
+        if (x <= 0) {
+            throw new IllegalArgumentException("Логарифм определён только для положительных чисел");
+        }
+        return Math.log(x);
+    }
+
+    public static double log(double x) {
+        if (x <= 0) {
+            throw new IllegalArgumentException("Логарифм определён только для положительных чисел");
+        }
+        return Math.log10(x);
+    }
+
+    public static double sqrt(double x) {
+        if (x < 0) {
+            throw new IllegalArgumentException("Корень из отрицательного числа не определён");
+        }
+        return Math.sqrt(x);
+    }
 }
@@ -0,0 +1,598 @@
+package com.example.expression;
+
+import com.example.metrics.Metrics;
+import com.example.metrics.PhaseMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+
+/**
+ * Вычислитель математических выражений на основе RPN (обратной польской
+ * нотации).
+ * <p>
+ * Работает с токенизированными выражениями, поддерживает:
+ * </p>
+ * <ul>
+ * <li>Числа и константы</li>
+ * <li>Переменные (через карту значений)</li>
+ * <li>Операторы: +, -, *, /, ^</li>
+ * <li>Функции: sin, cos, tan, ln, log, sqrt, abs и др.</li>
+ * </ul>
+ * 
+ * <h3>Архитектура:</h3>
+ * <p>
+ * Этот класс аналогичен ExpressionEvaluator из JS-версии. Он принимает
+ * последовательность токенов в RPN и вычисляет результат используя стек.
+ * Стек хранится в примитивном массиве {@code double[]}, поэтому промежуточные
+ * значения не упаковываются в {@code Double}.
+ * </p>
+ */
+public class ExpressionEvaluator {
+
+    /** Встроенные операторы, которым соответствуют собственные коды операций. */
+    private static final Map<Definition, Integer> INTRINSICS = new IdentityHashMap<>();
+
+    static {
+        INTRINSICS.put(ExpressionDefinitions.OPERATORS.get("+"), Program.ADD);
+        INTRINSICS.put(ExpressionDefinitions.OPERATORS.get("-"), Program.SUB);
+        INTRINSICS.put(ExpressionDefinitions.OPERATORS.get("*"), Program.MUL);
+        INTRINSICS.put(ExpressionDefinitions.OPERATORS.get("/"), Program.DIV);
+        INTRINSICS.put(ExpressionDefinitions.OPERATORS.get("^"), Program.POW);
+        INTRINSICS.put(ExpressionDefinitions.OPERATORS.get("~"), Program.NEG);
+    }
+
+    private final Map<String, Double> constants;
+    private final Map<String, FunctionDef> functions;
+    private final Map<String, OperatorDef> operators;
+
+    /**
+     * Функция произвольного числа аргументов над примитивными значениями.
+     */
+    @FunctionalInterface
+    public interface DoubleNaryOperator {
+        double applyAsDouble(double[] args);
+    }
+
+    /**
+     * Общая часть определений функций и операторов.
+     * <p>
+     * Определение хранит реализацию, специализированную по арности:
+     * {@link DoubleUnaryOperator}, {@link DoubleBinaryOperator} или
+     * {@link DoubleNaryOperator}. Одно- и двухаргументные реализации
+     * вызываются прямо над стеком вычислителя без массива аргументов и
+     * без упаковки результата. Поле {@link #evaluate} сохранено для
+     * совместимости и служит адаптером к прежнему интерфейсу.
+     * </p>
+     */
+    public abstract static class Definition {
+        public final int args;
+        public final Function<double[], Double> evaluate;
+
+        final DoubleUnaryOperator unary;
+        final DoubleBinaryOperator binary;
+        final DoubleNaryOperator nary;
+
+        Definition(int args, Function<double[], Double> evaluate) {
+            this.args = args;
+            this.evaluate = evaluate;
+            this.unary = null;
+            this.binary = null;
+            this.nary = values -> evaluate.apply(values);
+        }
+
+        Definition(DoubleUnaryOperator unary) {
+            this.args = 1;
+            this.evaluate = values -> unary.applyAsDouble(values[0]);
+            this.unary = unary;
+            this.binary = null;
+            this.nary = null;
+        }
+
+        Definition(DoubleBinaryOperator binary) {
+            this.args = 2;
+            this.evaluate = values -> binary.applyAsDouble(values[0], values[1]);
+            this.unary = null;
+            this.binary = binary;
+            this.nary = null;
+        }
+
+        Definition(int args, DoubleNaryOperator nary) {
+            this.args = args;
+            this.evaluate = values -> nary.applyAsDouble(values);
+            this.unary = null;
+            this.binary = null;
+            this.nary = nary;
+        }
+
+        /**
+         * Применяет определение к аргументам.
+         *
+         * @param values значения аргументов (ровно {@link #args} штук)
+         * @return результат
+         */
+        public double apply(double... values) {
+            if (unary != null) {
+                return unary.applyAsDouble(values[0]);
+            }
+            if (binary != null) {
+                return binary.applyAsDouble(values[0], values[1]);
+            }
+            return nary.applyAsDouble(values);
+        }
+
+        /**
+         * Применяет определение к верхним {@link #args} значениям стека и
+         * кладёт результат на их место.
+         *
+         * @param stack стек вычислителя
+         * @param sp    текущая вершина стека (количество значений)
+         * @return новая вершина стека
+         */
+        int apply(double[] stack, int sp) {
+            if (unary != null) {
+                stack[sp - 1] = unary.applyAsDouble(stack[sp - 1]);
+                return sp;
+            }
+            if (binary != null) {
+                stack[sp - 2] = binary.applyAsDouble(stack[sp - 2], stack[sp - 1]);
+                return sp - 1;
+            }
+            int base = sp - args;
+            stack[base] = nary.applyAsDouble(Arrays.copyOfRange(stack, base, sp));
+            return base + 1;
+        }
+    }
+
+    /**
+     * Определение функции.
+     */
+    public static class FunctionDef extends Definition {
+
+        public FunctionDef(int args, Function<double[], Double> evaluate) {
+            super(args, evaluate);
+        }
+
+        public FunctionDef(DoubleUnaryOperator evaluate) {
+            super(evaluate);
+        }
+
+        public FunctionDef(DoubleBinaryOperator evaluate) {
+            super(evaluate);
+        }
+
+        private FunctionDef(int args, DoubleNaryOperator evaluate) {
+            super(args, evaluate);
+        }
+
+        /**
+         * Создаёт функцию с произвольным числом аргументов.
+         */
+        public static FunctionDef nary(int args, DoubleNaryOperator evaluate) {
+            return new FunctionDef(args, evaluate);
+        }
+    }
+
+    /**
+     * Определение оператора.
+     */
+    public static class OperatorDef extends Definition {
+
+        public OperatorDef(int args, Function<double[], Double> evaluate) {
+            super(args, evaluate);
+        }
+
+        public OperatorDef(DoubleUnaryOperator evaluate) {
+            super(evaluate);
+        }
+
+        public OperatorDef(DoubleBinaryOperator evaluate) {
+            super(evaluate);
+        }
+    }
+
+    /**
+     * Создаёт вычислитель с заданными константами, функциями и операторами.
+     */
+    public ExpressionEvaluator(
+            Map<String, Double> constants,
+            Map<String, FunctionDef> functions,
+            Map<String, OperatorDef> operators) {
+        this.constants = constants;
+        this.functions = functions;
+        this.operators = operators;
+    }
+
+    /**
+     * Создаёт вычислитель с настройками по умолчанию.
+     */
+    public static ExpressionEvaluator createDefault() {
+        return new ExpressionEvaluator(
+                ExpressionDefinitions.CONSTANTS,
+                ExpressionDefinitions.FUNCTIONS,
+                ExpressionDefinitions.OPERATORS);
+    }
+
+    /**
+     * Вычисляет выражение в RPN.
+     * 
+     * @param rpn       список токенов в обратной польской нотации
+     * @param variables карта значений переменных (может быть пустой)
+     * @return результат вычисления
+     * @throws IllegalArgumentException при ошибке вычисления
+     */
+    public double evaluate(List<Token> rpn, Map<String, Double> variables) {
+        // Глубина стека не может превышать количество токенов
+        return evaluate(rpn, variables, new double[Math.max(rpn.size(), 1)]);
+    }
+
+    /**
+     * Вычисляет выражение в RPN, используя переданный рабочий стек.
+     * <p>
+     * Стек должен вмещать не менее {@link #maxStackDepth(List)} значений.
+     * Повторное использование одного массива между вызовами избавляет
+     * вычисление от упаковки промежуточных значений и выделения памяти под стек.
+     * Время и ошибки учитываются в {@link Metrics#EVALUATE}.
+     * </p>
+     * 
+     * @param rpn       список токенов в обратной польской нотации
+     * @param variables карта значений переменных (может быть пустой)
+     * @param stack     рабочий стек
+     * @return результат вычисления
+     * @throws IllegalArgumentException при ошибке вычисления
+     */
+    public double evaluate(List<Token> rpn, Map<String, Double> variables, double[] stack) {
+        return PhaseMetrics.measure(Metrics.EVALUATE, () -> run(rpn, variables, stack));
+    }
+
+    private double run(List<Token> rpn, Map<String, Double> variables, double[] stack) {
+        int sp = 0;
+
+        for (int i = 0, n = rpn.size(); i < n; i++) {
+            Token token = rpn.get(i);
+            switch (token.getType()) {
+                case NUMBER:
+                    stack[sp++] = evaluateNumber(token);
+                    break;
+
+                case CONSTANT:
+                    stack[sp++] = evaluateConstant(token);
+                    break;
+
+                case VARIABLE:
+                    stack[sp++] = evaluateVariable(token, variables);
+                    break;
+
+                case OPERATOR:
+                    sp = evaluateOperator(token, stack, sp);
+                    break;
+
+                case FUNCTION:
+                    sp = evaluateFunction(token, stack, sp);
+                    break;
+
+                default:
+                    throw new IllegalArgumentException(
+                            String.format("Недопустимый токен '%s' в позиции %d:%d",
+                                    token.getValue(), token.getStart(), token.getEnd()));
+            }
+        }
+
+        if (sp != 1) {
+            throw new IllegalArgumentException("Некорректное выражение");
+        }
+
+        return stack[0];
+    }
+
+    /**
+     * Вычисляет максимальную глубину стека, необходимую для вычисления RPN.
+     * <p>
+     * Неизвестные операторы и функции не учитываются: ошибка о них будет
+     * выдана при вычислении.
+     * </p>
+     * 
+     * @param rpn список токенов в обратной польской нотации
+     * @return максимальное количество значений в стеке (не меньше 1)
+     */
+    public int maxStackDepth(List<Token> rpn) {
+        int depth = 0;
+        int max = 1;
+
+        for (Token token : rpn) {
+            switch (token.getType()) {
+                case NUMBER:
+                case CONSTANT:
+                case VARIABLE:
+                    depth++;
+                    break;
+
+                case OPERATOR: {
+                    OperatorDef operator = operators.get(normalizeOperator(token.getValue()));
+                    if (operator != null) {
+                        depth = Math.max(depth - operator.args, 0) + 1;
+                    }
+                    break;
+                }
+
+                case FUNCTION: {
+                    FunctionDef func = functions.get(token.getValue().toLowerCase());
+                    if (func != null) {
+                        depth = Math.max(depth - func.args, 0) + 1;
+                    }
+                    break;
+                }
+
+                default:
+                    break;
+            }
+            max = Math.max(max, depth);
+        }
+
+        return max;
+    }
+
+    /**
+     * Возвращает количество аргументов, которые токен RPN снимает со стека:
+     * 0 для чисел, констант и переменных.
+     *
+     * @throws IllegalArgumentException для неизвестных операторов, функций
+     *                                  и недопустимых токенов
+     */
+    int arity(Token token) {
+        switch (token.getType()) {
+            case NUMBER:
+            case CONSTANT:
+            case VARIABLE:
+                return 0;
+
+            case OPERATOR: {
+                OperatorDef operator = operators.get(normalizeOperator(token.getValue()));
+                if (operator == null) {
+                    throw new IllegalArgumentException(
+                            String.format("Неизвестный оператор '%s' в позиции %d:%d",
+                                    token.getValue(), token.getStart(), token.getEnd()));
+                }
+                return operator.args;
+            }
+
+            case FUNCTION: {
+                FunctionDef func = functions.get(token.getValue().toLowerCase());
+                if (func == null) {
+                    throw new IllegalArgumentException(
+                            String.format("Неизвестная функция '%s' в позиции %d:%d",
+                                    token.getValue(), token.getStart(), token.getEnd()));
+                }
+                return func.args;
+            }
+
+            default:
+                throw new IllegalArgumentException(
+                        String.format("Недопустимый токен '%s' в позиции %d:%d",
+                                token.getValue(), token.getStart(), token.getEnd()));
+        }
+    }
+
+    /**
+     * Понижает RPN в программу для {@link Program#run}.
+     * <p>
+     * Числа разбираются, константы, функции и операторы разрешаются один раз.
+     * Ошибки, которые при вычислении по токенам возникли бы на каждом вызове
+     * (неизвестные имена, нехватка аргументов), выдаются здесь с теми же
+     * сообщениями. Встроенные арифметические операторы получают собственные
+     * коды операций.
+     * </p>
+     * 
+     * @param rpn список токенов в обратной польской нотации
+     * @return программа
+     * @throws IllegalArgumentException если RPN нельзя вычислить
+     */
+    Program compile(List<Token> rpn) {
+        int size = rpn.size();
+        int[] code = new int[size];
+        Token[] tokens = rpn.toArray(new Token[0]);
+
+        double[] pool = new double[size];
+        Map<Double, Integer> poolIndex = new HashMap<>();
+        List<String> variableNames = new ArrayList<>();
+        Map<String, Integer> slots = new HashMap<>();
+        List<Definition> targets = new ArrayList<>();
+        Map<Definition, Integer> targetIndex = new IdentityHashMap<>();
+
+        int depth = 0;
+        int max = 1;
+
+        for (int i = 0; i < size; i++) {
+            Token token = tokens[i];
+            switch (token.getType()) {
+                case NUMBER:
+                case CONSTANT: {
+                    double value = token.getType() == TokenType.NUMBER
+                            ? evaluateNumber(token)
+                            : evaluateConstant(token);
+                    Integer index = poolIndex.get(value);
+                    if (index == null) {
+                        index = poolIndex.size();
+                        poolIndex.put(value, index);
+                        pool[index] = value;
+                    }
+                    code[i] = Program.encode(Program.CONST, index);
+                    depth++;
+                    break;
+                }
+
+                case VARIABLE: {
+                    Integer slot = slots.get(token.getValue());
+                    if (slot == null) {
+                        slot = variableNames.size();
+                        slots.put(token.getValue(), slot);
+                        variableNames.add(token.getValue());
+                    }
+                    code[i] = Program.encode(Program.VAR, slot);
+                    depth++;
+                    break;
+                }
+
+                case OPERATOR: {
+                    OperatorDef operator = operators.get(normalizeOperator(token.getValue()));
+                    if (operator == null) {
+                        throw new IllegalArgumentException(
+                                String.format("Неизвестный оператор '%s' в позиции %d:%d",
+                                        token.getValue(), token.getStart(), token.getEnd()));
+                    }
+                    if (depth < operator.args) {
+                        throw new IllegalArgumentException(
+                                String.format("Недостаточно аргументов для оператора '%s' в позиции %d:%d",
+                                        token.getValue(), token.getStart(), token.getEnd()));
+                    }
+                    Integer intrinsic = INTRINSICS.get(operator);
+                    code[i] = intrinsic != null
+                            ? intrinsic
+                            : callInstruction(operator, targets, targetIndex);
+                    depth = depth - operator.args + 1;
+                    break;
+                }
+
+                case FUNCTION: {
+                    FunctionDef func = functions.get(token.getValue().toLowerCase());
+                    if (func == null) {
+                        throw new IllegalArgumentException(
+                                String.format("Неизвестная функция '%s' в позиции %d:%d",
+                                        token.getValue(), token.getStart(), token.getEnd()));
+                    }
+                    if (depth < func.args) {
+                        throw new IllegalArgumentException(
+                                String.format("Недостаточно аргументов для функции '%s' в позиции %d:%d",
+                                        token.getValue(), token.getStart(), token.getEnd()));
+                    }
+                    code[i] = callInstruction(func, targets, targetIndex);
+                    depth = depth - func.args + 1;
+                    break;
+                }
+
+                default:
+                    throw new IllegalArgumentException(
+                            String.format("Недопустимый токен '%s' в позиции %d:%d",
+                                    token.getValue(), token.getStart(), token.getEnd()));
+            }
+            max = Math.max(max, depth);
+        }
+
+        if (depth != 1) {
+            throw new IllegalArgumentException("Некорректное выражение");
+        }
+
+        return new Program(
+                code,
+                Arrays.copyOf(pool, poolIndex.size()),
+                variableNames.toArray(new String[0]),
+                Map.copyOf(slots),
+                targets.toArray(new Definition[0]),
+                tokens,
+                max);
+    }
+
+    private static int callInstruction(Definition def, List<Definition> targets,
+            Map<Definition, Integer> targetIndex) {
+        Integer index = targetIndex.get(def);
+        if (index == null) {
+            index = targets.size();
+            targets.add(def);
+            targetIndex.put(def, index);
+        }
+        int op = def.unary != null ? Program.CALL1
+                : def.binary != null ? Program.CALL2
+                : Program.CALLN;
+        return Program.encode(op, index);
+    }
+
+    private double evaluateNumber(Token token) {
+        if (token.hasNumber()) {
+            return token.getNumber();
+        }
+        try {
+            return Double.parseDouble(token.getValue());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    String.format("Некорректное число '%s' в позиции %d:%d",
+                            token.getValue(), token.getStart(), token.getEnd()));
+        }
+    }
+
+    private double evaluateConstant(Token token) {
+        Double value = constants.get(token.getValue().toLowerCase());
+        if (value == null) {
+            throw new IllegalArgumentException(
+                    String.format("Неизвестная константа '%s' в позиции %d:%d",
+                            token.getValue(), token.getStart(), token.getEnd()));
+        }
+        return value;
+    }
+
+    private double evaluateVariable(Token token, Map<String, Double> variables) {
+        Double value = variables.get(token.getValue());
+        if (value == null) {
+            throw new IllegalArgumentException(
+                    String.format("Значение переменной '%s' не задано", token.getValue()));
+        }
+        return value;
+    }
+
+    private int evaluateOperator(Token token, double[] stack, int sp) {
+        String op = normalizeOperator(token.getValue());
+        OperatorDef operator = operators.get(op);
+
+        if (operator == null) {
+            throw new IllegalArgumentException(
+                    String.format("Неизвестный оператор '%s' в позиции %d:%d",
+                            token.getValue(), token.getStart(), token.getEnd()));
+        }
+
+        if (sp < operator.args) {
+            throw new IllegalArgumentException(
+                    String.format("Недостаточно аргументов для оператора '%s' в позиции %d:%d",
+                            token.getValue(), token.getStart(), token.getEnd()));
+        }
+
+        return operator.apply(stack, sp);
+    }
+
+    private int evaluateFunction(Token token, double[] stack, int sp) {
+        FunctionDef func = functions.get(token.getValue().toLowerCase());
+
+        if (func == null) {
+            throw new IllegalArgumentException(
+                    String.format("Неизвестная функция '%s' в позиции %d:%d",
+                            token.getValue(), token.getStart(), token.getEnd()));
+        }
+
+        if (sp < func.args) {
+            throw new IllegalArgumentException(
+                    String.format("Недостаточно аргументов для функции '%s' в позиции %d:%d",
+                            token.getValue(), token.getStart(), token.getEnd()));
+        }
+
+        return func.apply(stack, sp);
+    }
+
+    /**
+     * Нормализует символы операторов (× → *, ÷ → /).
+     */
+    private String normalizeOperator(String op) {
+        switch (op) {
+            case "×":
+                return "*";
+            case "÷":
+                return "/";
+            default:
+                return op;
+        }
+    }
+
+}
@@ -0,0 +1,253 @@
+package com.example.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Оптимизатор выражений в RPN.
+ * <p>
+ * Выполняется между {@link PrattParser#parse(List)} и вычислением:
+ * </p>
+ * <ul>
+ * <li>сворачивает поддеревья без переменных в числа, вычисляя их теми же
+ * определениями, что и вычислитель;</li>
+ * <li>убирает тождественные операции: {@code x*1}, {@code 1*x}, {@code x/1},
+ * {@code x^1}, {@code x-0}, {@code x+(-0)} и двойное отрицание
+ * {@code ~~x}.</li>
+ * </ul>
+ * <p>
+ * Все преобразования точны в смысле IEEE 754. Поэтому {@code x+0} не
+ * упрощается: при {@code x = -0.0} сумма равна {@code +0.0}. Если
+ * свёртка поддерева бросает исключение (деление на ноль, логарифм
+ * неположительного числа), поддерево остаётся как есть, и ошибка
+ * возникает при вычислении, как и без оптимизатора.
+ * </p>
+ *
+ * <h3>Пример:</h3>
+ * <pre>
+ * "2 * pi / 180 * x"  →  RPN: 0.03490658503988659 x *
+ * "sqrt(16) + y * 1"  →  RPN: 4.0 y +
+ * </pre>
+ */
+public class ExpressionOptimizer {
+
+    private final Map<String, Double> constants;
+    private final Map<String, ExpressionEvaluator.FunctionDef> functions;
+    private final Map<String, ExpressionEvaluator.OperatorDef> operators;
+
+    /**
+     * Узел дерева выражения, восстановленного из RPN.
+     */
+    private static final class Node {
+        final Token token;
+        final ExpressionEvaluator.Definition definition;
+        final Node[] children;
+        final boolean constant;
+        final double value;
+
+        Node(Token token, ExpressionEvaluator.Definition definition, Node[] children) {
+            this.token = token;
+            this.definition = definition;
+            this.children = children;
+            this.constant = false;
+            this.value = 0;
+        }
+
+        Node(Token token, double value) {
+            this.token = token;
+            this.definition = null;
+            this.children = new Node[0];
+            this.constant = true;
+            this.value = value;
+        }
+
+        boolean isConstant(double expected) {
+            return constant && Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits(expected);
+        }
+
+        boolean is(String operator) {
+            return definition != null && definition == ExpressionDefinitions.OPERATORS.get(operator);
+        }
+    }
+
+    /**
+     * Создаёт оптимизатор с заданными константами, функциями и операторами.
+     */
+    public ExpressionOptimizer(
+            Map<String, Double> constants,
+            Map<String, ExpressionEvaluator.FunctionDef> functions,
+            Map<String, ExpressionEvaluator.OperatorDef> operators) {
+        this.constants = constants;
+        this.functions = functions;
+        this.operators = operators;
+    }
+
+    /**
+     * Создаёт оптимизатор с настройками по умолчанию.
+     */
+    public static ExpressionOptimizer createDefault() {
+        return new ExpressionOptimizer(
+                ExpressionDefinitions.CONSTANTS,
+                ExpressionDefinitions.FUNCTIONS,
+                ExpressionDefinitions.OPERATORS);
+    }
+
+    /**
+     * Оптимизирует выражение.
+     * <p>
+     * Если RPN содержит ошибки (неизвестные имена, нехватку аргументов),
+     * оно возвращается без изменений, чтобы ошибку сообщил вычислитель.
+     * </p>
+     *
+     * @param rpn список токенов в обратной польской нотации
+     * @return эквивалентный список токенов в RPN
+     */
+    public List<Token> optimize(List<Token> rpn) {
+        List<Node> stack = new ArrayList<>();
+
+        for (Token token : rpn) {
+            switch (token.getType()) {
+                case NUMBER: {
+                    double value;
+                    try {
+                        value = token.hasNumber() ? token.getNumber() : Double.parseDouble(token.getValue());
+                    } catch (NumberFormatException e) {
+                        return rpn;
+                    }
+                    stack.add(new Node(token, value));
+                    break;
+                }
+
+                case CONSTANT: {
+                    Double value = constants.get(token.getValue().toLowerCase());
+                    if (value == null) {
+                        return rpn;
+                    }
+                    stack.add(new Node(token, value));
+                    break;
+                }
+
+                case VARIABLE:
+                    stack.add(new Node(token, null, new Node[0]));
+                    break;
+
+                case OPERATOR:
+                case FUNCTION: {
+                    ExpressionEvaluator.Definition definition = token.getType() == TokenType.OPERATOR
+                            ? operators.get(normalizeOperator(token.getValue()))
+                            : functions.get(token.getValue().toLowerCase());
+                    if (definition == null || stack.size() < definition.args) {
+                        return rpn;
+                    }
+                    Node[] children = new Node[definition.args];
+                    for (int i = definition.args - 1; i >= 0; i--) {
+                        children[i] = stack.remove(stack.size() - 1);
+                    }
+                    stack.add(simplify(new Node(token, definition, children)));
+                    break;
+                }
+
+                default:
+                    return rpn;
+            }
+        }
+
+        if (stack.size() != 1) {
+            return rpn;
+        }
+
+        List<Token> result = new ArrayList<>(rpn.size());
+        emit(stack.get(0), result);
+        return result;
+    }
+
+    /**
+     * Сворачивает константный узел или применяет тождество.
+     */
+    private Node simplify(Node node) {
+        Node[] children = node.children;
+
+        boolean allConstant = true;
+        for (Node child : children) {
+            allConstant &= child.constant;
+        }
+        if (allConstant) {
+            double[] args = new double[children.length];
+            for (int i = 0; i < children.length; i++) {
+                args[i] = children[i].value;
+            }
+            try {
+                double value = node.definition.apply(args);
+                return new Node(foldedToken(node, value), value);
+            } catch (RuntimeException e) {
+                // Ошибка должна возникнуть при вычислении, а не при компиляции
+                return node;
+            }
+        }
+
+        if (node.is("*")) {
+            if (children[1].isConstant(1.0)) {
+                return children[0];
+            }
+            if (children[0].isConstant(1.0)) {
+                return children[1];
+            }
+        } else if (node.is("/") || node.is("^")) {
+            if (children[1].isConstant(1.0)) {
+                return children[0];
+            }
+        } else if (node.is("+")) {
+            if (children[1].isConstant(-0.0)) {
+                return children[0];
+            }
+            if (children[0].isConstant(-0.0)) {
+                return children[1];
+            }
+        } else if (node.is("-")) {
+            if (children[1].isConstant(0.0)) {
+                return children[0];
+            }
+        } else if (node.is("~")) {
+            if (children[0].is("~")) {
+                return children[0].children[0];
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Создаёт числовой токен, занимающий позиции всего свёрнутого поддерева.
+     */
+    private static Token foldedToken(Node node, double value) {
+        int start = node.token.getStart();
+        int end = node.token.getEnd();
+        for (Node child : node.children) {
+            start = Math.min(start, child.token.getStart());
+            end = Math.max(end, child.token.getEnd());
+        }
+        return Token.number(Double.toString(value), value, start, end);
+    }
+
+    private static void emit(Node node, List<Token> out) {
+        for (Node child : node.children) {
+            emit(child, out);
+        }
+        out.add(node.token);
+    }
+
+    /**
+     * Нормализует символы операторов (× → *, ÷ → /).
+     */
+    private static String normalizeOperator(String op) {
+        switch (op) {
+            case "×":
+                return "*";
+            case "÷":
+                return "/";
+            default:
+                return op;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.expression;
+
+import java.util.List;
+
+/**
+ * Парсер и вычислитель математических выражений.
+ * <p>
+ * Объединяет токенизатор, парсер Пратта и вычислитель RPN для полного
+ * цикла обработки математических выражений.
+ * </p>
+ * 
+ * <h3>Архитектура (аналогична JS-версии):</h3>
+ * <ol>
+ * <li><b>ExpressionTokenizer</b> - разбивает строку на токены</li>
+ * <li><b>PrattParser</b> - преобразует токены в RPN</li>
+ * <li><b>ExpressionEvaluator</b> - вычисляет RPN</li>
+ * </ol>
+ * <p>
+ * Для многократного вычисления одного выражения удобнее использовать
+ * {@link CompiledExpression} напрямую.
+ * </p>
+ * 
+ * <h3>Пример использования:</h3>
+ * <pre>
+ * ExpressionParser parser = new ExpressionParser("2 + 3 * sin(pi / 2)");
+ * double result = parser.evaluate();  // 5.0
+ * </pre>
+ */
+public class ExpressionParser {
+    
+    private final CompiledExpression compiled;
+    private final double[] values;
+    private final boolean[] bound;
+    
+    /**
+     * Создаёт парсер для указанного выражения.
+     * <p>
+     * Разобранное выражение берётся из общего кэша {@link ExpressionCache},
+     * поэтому повторяющиеся выражения не токенизируются заново.
+     * </p>
+     * 
+     * @param expression математическое выражение
+     * @throws IllegalArgumentException при ошибках синтаксиса
+     */
+    public ExpressionParser(String expression) {
+        this(CompiledExpression.compile(expression));
+    }
+    
+    /**
+     * Создаёт парсер для готового списка токенов.
+     * <p>
+     * Токенизация пропускается: типы токенов и значения чисел берутся как
+     * есть (см. {@link CompiledExpression#compile(List)}).
+     * </p>
+     * 
+     * @param tokens токены выражения в порядке записи
+     * @throws IllegalArgumentException при ошибках синтаксиса
+     */
+    public ExpressionParser(List<Token> tokens) {
+        this(CompiledExpression.compile(tokens));
+    }
+    
+    private ExpressionParser(CompiledExpression compiled) {
+        this.compiled = compiled;
+        this.values = new double[compiled.getVariableNames().size()];
+        this.bound = new boolean[values.length];
+    }
+    
+    /**
+     * Устанавливает значение переменной.
+     * <p>
+     * Значение записывается прямо в слот скомпилированного выражения;
+     * переменные, которых нет в выражении, игнорируются.
+     * </p>
+     * 
+     * @param name имя переменной
+     * @param value значение
+     */
+    public void setVariable(String name, double value) {
+        int slot = compiled.getVariableIndex(name);
+        if (slot >= 0) {
+            values[slot] = value;
+            bound[slot] = true;
+        }
+    }
+    
+    /**
+     * Вычисляет выражение.
+     * 
+     * @return результат вычисления
+     * @throws IllegalArgumentException при ошибках вычисления
+     */
+    public double evaluate() {
+        for (int slot = 0; slot < bound.length; slot++) {
+            if (!bound[slot]) {
+                return compiled.evaluateMissing(values, slot);
+            }
+        }
+        return compiled.evaluate(values);
+    }
+    
+    /**
+     * Возвращает RPN для отладки.
+     */
+    public List<Token> getRPN() {
+        return compiled.getRPN();
+    }
+    
+}
@@ -0,0 +1,578 @@
+package com.example.expression;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Профиль вычисления выражения: сколько времени занимает каждый токен.
+ * <p>
+ * Выражение разбирается в RPN {@link PrattParser} без оптимизатора, то есть
+ * в том виде, как его записал пользователь. Каждый токен RPN — корень
+ * поддерева; поддерево понижается в программу {@link Program} и
+ * вычисляется интерпретатором {@code iterations} раз. Собственное время
+ * токена — время его поддерева за вычетом поддеревьев аргументов и
+ * накладных расходов вызова, измеренных на программе из одного числа.
+ * Замер повторяется {@value #ROUNDS} раз, берётся наименьшее время.
+ * Замерять каждый токен отдельно по часам нельзя: {@link System#nanoTime()}
+ * стоит дороже большинства операций.
+ * </p>
+ * <p>
+ * Кроме времени профиль подсказывает, что можно упростить:
+ * </p>
+ * <ul>
+ * <li>{@link Hint.Kind#REPEATED} — поддерево встречается несколько раз и
+ * каждый раз вычисляется заново;</li>
+ * <li>{@link Hint.Kind#CONSTANT} — поддерево не зависит от переменных;
+ * {@link CompiledExpression} сворачивает его при компиляции, но в записи
+ * формулы его можно заменить числом.</li>
+ * </ul>
+ *
+ * <h3>Пример:</h3>
+ * <pre>
+ * ExpressionProfile profile = ExpressionProfile.profile(
+ *         "sin(x)^2 + sin(x)^2 * 2 * pi / 180", Map.of("x", 0.5));
+ * System.out.println(profile.format());
+ * for (ExpressionProfile.Hint hint : profile.getHints()) {
+ *     System.out.println(hint.getMessage());  // sin(x)^2 повторяется 2 раза...
+ * }
+ * </pre>
+ */
+public final class ExpressionProfile {
+
+    /** Количество вычислений по умолчанию. */
+    public static final int DEFAULT_ITERATIONS = 10_000;
+
+    /** Количество замеров, из которых берётся наименьшее время. */
+    static final int ROUNDS = 5;
+
+    private static final ExpressionTokenizer TOKENIZER = new ExpressionTokenizer(
+            ExpressionDefinitions.FUNCTION_NAMES,
+            ExpressionDefinitions.CONSTANT_NAMES);
+
+    private static final ExpressionEvaluator EVALUATOR = ExpressionEvaluator.createDefault();
+
+    /** Приёмник результатов замеров, чтобы JIT не выбросил вычисления. */
+    private static volatile double sink;
+
+    private final String source;
+    private final double result;
+    private final int iterations;
+    private final long totalNanos;
+    private final List<Entry> entries;
+    private final List<Hint> hints;
+
+    private ExpressionProfile(String source, double result, int iterations, long totalNanos,
+            List<Entry> entries, List<Hint> hints) {
+        this.source = source;
+        this.result = result;
+        this.iterations = iterations;
+        this.totalNanos = totalNanos;
+        this.entries = entries;
+        this.hints = hints;
+    }
+
+    /**
+     * Время одного токена RPN.
+     */
+    public static final class Entry {
+        private final Token token;
+        private final String subtree;
+        private final long count;
+        private final long nanos;
+        private final long subtreeNanos;
+        private final double share;
+
+        Entry(Token token, String subtree, long count, long nanos, long subtreeNanos, double share) {
+            this.token = token;
+            this.subtree = subtree;
+            this.count = count;
+            this.nanos = nanos;
+            this.subtreeNanos = subtreeNanos;
+            this.share = share;
+        }
+
+        public Token getToken() {
+            return token;
+        }
+
+        /**
+         * Возвращает начальную позицию токена в выражении.
+         */
+        public int getStart() {
+            return token.getStart();
+        }
+
+        /**
+         * Возвращает конечную позицию токена в выражении.
+         */
+        public int getEnd() {
+            return token.getEnd();
+        }
+
+        /**
+         * Возвращает текст поддерева, корнем которого является токен.
+         */
+        public String getSubtree() {
+            return subtree;
+        }
+
+        /**
+         * Возвращает количество выполнений токена: каждый токен выполняется
+         * один раз за вычисление.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Возвращает собственное время токена за все выполнения, нс.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Возвращает время поддерева токена за все выполнения, нс.
+         */
+        public long getSubtreeNanos() {
+            return subtreeNanos;
+        }
+
+        /**
+         * Возвращает долю собственного времени токена от времени выражения (0..1).
+         */
+        public double getShare() {
+            return share;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Entry{token='%s', pos=%d:%d, count=%d, nanos=%d, share=%.3f}",
+                    token.getValue(), getStart(), getEnd(), count, nanos, share);
+        }
+    }
+
+    /**
+     * Подсказка: часть выражения, которую можно упростить.
+     */
+    public static final class Hint {
+
+        /**
+         * Вид подсказки.
+         */
+        public enum Kind {
+            /** Поддерево встречается несколько раз. */
+            REPEATED,
+            /** Поддерево не зависит от переменных. */
+            CONSTANT
+        }
+
+        private final Kind kind;
+        private final String text;
+        private final List<int[]> positions;
+        private final double share;
+        private final String message;
+
+        Hint(Kind kind, String text, List<int[]> positions, double share, String message) {
+            this.kind = kind;
+            this.text = text;
+            this.positions = positions;
+            this.share = share;
+            this.message = message;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Возвращает текст поддерева.
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Возвращает начальную позицию первого вхождения поддерева.
+         */
+        public int getStart() {
+            return positions.get(0)[0];
+        }
+
+        /**
+         * Возвращает конечную позицию первого вхождения поддерева.
+         */
+        public int getEnd() {
+            return positions.get(0)[1];
+        }
+
+        /**
+         * Возвращает количество вхождений поддерева.
+         */
+        public int getOccurrences() {
+            return positions.size();
+        }
+
+        /**
+         * Возвращает долю времени выражения, которую занимают все вхождения
+         * поддерева (0..1).
+         */
+        public double getShare() {
+            return share;
+        }
+
+        /**
+         * Возвращает описание подсказки для пользователя.
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Hint{kind=%s, pos=%d:%d, text='%s'}", kind, getStart(), getEnd(), text);
+        }
+    }
+
+    /**
+     * Профилирует выражение, вычисляя его {@value #DEFAULT_ITERATIONS} раз.
+     *
+     * @see #profile(String, Map, int)
+     */
+    public static ExpressionProfile profile(String expression, Map<String, Double> variables) {
+        return profile(expression, variables, DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Профилирует выражение.
+     * <p>
+     * Время работы — порядка {@code iterations × 5 × (длина RPN × глубина
+     * дерева)} операций; для длинных формул количество вычислений стоит
+     * уменьшить.
+     * </p>
+     *
+     * @param expression математическое выражение
+     * @param variables  значения переменных выражения
+     * @param iterations количество вычислений в одном замере
+     * @return профиль
+     * @throws IllegalArgumentException при ошибках синтаксиса, незаданных
+     *                                  переменных или ошибках вычисления
+     * @throws ArithmeticException      при арифметических ошибках вычисления
+     */
+    public static ExpressionProfile profile(String expression, Map<String, Double> variables, int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Количество вычислений должно быть положительным: %d", iterations));
+        }
+        List<Token> rpn = new PrattParser(ExpressionDefinitions.FUNCTIONS).parse(TOKENIZER.tokenize(expression));
+        int size = rpn.size();
+        Token[] tokens = rpn.toArray(new Token[0]);
+
+        // Поддерево токена i занимает в RPN отрезок [first[i], i]
+        int[] first = new int[size];
+        int[] parent = new int[size];
+        int[][] children = new int[size][];
+        int[] spanStart = new int[size];
+        int[] spanEnd = new int[size];
+        boolean[] constant = new boolean[size];
+        int[] roots = new int[size];
+        int depth = 0;
+        for (int i = 0; i < size; i++) {
+            Token token = tokens[i];
+            int args = EVALUATOR.arity(token);
+            if (depth < args) {
+                throw new IllegalArgumentException("Некорректное выражение");
+            }
+            depth -= args;
+            children[i] = new int[args];
+            System.arraycopy(roots, depth, children[i], 0, args);
+            first[i] = args > 0 ? first[children[i][0]] : i;
+            spanStart[i] = token.getStart();
+            spanEnd[i] = token.getEnd();
+            constant[i] = token.getType() != TokenType.VARIABLE;
+            for (int child : children[i]) {
+                parent[child] = i;
+                spanStart[i] = Math.min(spanStart[i], spanStart[child]);
+                spanEnd[i] = Math.max(spanEnd[i], spanEnd[child]);
+                constant[i] &= constant[child];
+            }
+            balance(expression, spanStart, spanEnd, i);
+            roots[depth++] = i;
+        }
+        if (depth != 1) {
+            throw new IllegalArgumentException("Некорректное выражение");
+        }
+        parent[size - 1] = -1;
+
+        Program[] programs = new Program[size];
+        double[][] values = new double[size][];
+        double[][] stacks = new double[size][];
+        for (int i = 0; i < size; i++) {
+            programs[i] = EVALUATOR.compile(rpn.subList(first[i], i + 1));
+            values[i] = bind(programs[i], variables);
+            stacks[i] = new double[programs[i].maxStackDepth];
+        }
+        double result = programs[size - 1].run(values[size - 1], stacks[size - 1]);
+
+        Program empty = EVALUATOR.compile(List.of(Token.number("0", 0, 0, 1)));
+        double[] emptyStack = new double[1];
+        long[] best = new long[size];
+        long overhead = Long.MAX_VALUE;
+        // Первый проход — прогрев JIT, его время не учитывается
+        for (int round = 0; round <= ROUNDS; round++) {
+            long baseline = time(empty, values[0], emptyStack, iterations);
+            for (int i = 0; i < size; i++) {
+                long elapsed = time(programs[i], values[i], stacks[i], iterations);
+                if (round == 1 || round > 1 && elapsed < best[i]) {
+                    best[i] = elapsed;
+                }
+            }
+            if (round > 0) {
+                overhead = Math.min(overhead, baseline);
+            }
+        }
+
+        long[] inclusive = new long[size];
+        long[] self = new long[size];
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            inclusive[i] = Math.max(best[i] - overhead, 0);
+            long own = inclusive[i];
+            for (int child : children[i]) {
+                own -= inclusive[child];
+            }
+            self[i] = Math.max(own, 0);
+            total += self[i];
+        }
+
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(tokens[i], expression.substring(spanStart[i], spanEnd[i]),
+                    iterations, self[i], inclusive[i], share(self[i], total)));
+        }
+
+        List<Hint> hints = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (children[i].length > 0 && constant[i] && (parent[i] < 0 || !constant[parent[i]])) {
+                try {
+                    double value = programs[i].run(values[i], stacks[i]);
+                    String text = expression.substring(spanStart[i], spanEnd[i]);
+                    hints.add(new Hint(Hint.Kind.CONSTANT, text, List.of(new int[] {spanStart[i], spanEnd[i]}),
+                            share(inclusive[i], total),
+                            String.format("%s (позиция %d:%d) не зависит от переменных и равно %s: "
+                                    + "его можно заменить числом", text, spanStart[i], spanEnd[i], value)));
+                } catch (RuntimeException e) {
+                    // Ошибка свёртки возникнет и при вычислении
+                }
+            }
+        }
+        hints.addAll(repeated(expression, tokens, first, parent, children, constant, spanStart, spanEnd,
+                inclusive, total));
+
+        return new ExpressionProfile(expression, result, iterations, total,
+                Collections.unmodifiableList(entries), Collections.unmodifiableList(hints));
+    }
+
+    /**
+     * Находит поддеревья с переменными, которые встречаются несколько раз.
+     * Подсказка не выдаётся, если каждое вхождение лежит внутри большего
+     * повторяющегося поддерева.
+     */
+    private static List<Hint> repeated(String expression, Token[] tokens, int[] first, int[] parent,
+            int[][] children, boolean[] constant, int[] spanStart, int[] spanEnd, long[] inclusive, long total) {
+        int size = tokens.length;
+        String[] keys = new String[size];
+        Map<String, List<Integer>> occurrences = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int j = first[i]; j <= i; j++) {
+                Token token = tokens[j];
+                String value = token.getType() == TokenType.FUNCTION || token.getType() == TokenType.CONSTANT
+                        ? token.getValue().toLowerCase()
+                        : token.getValue();
+                key.append(value).append('\u0001');
+            }
+            keys[i] = key.toString();
+            if (children[i].length > 0 && !constant[i]) {
+                occurrences.computeIfAbsent(keys[i], k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<String, Integer> counts = new HashMap<>();
+        occurrences.forEach((key, nodes) -> counts.put(key, nodes.size()));
+        List<Hint> hints = new ArrayList<>();
+        for (List<Integer> nodes : occurrences.values()) {
+            if (nodes.size() < 2) {
+                continue;
+            }
+            boolean nested = true;
+            for (int node : nodes) {
+                nested &= parent[node] >= 0 && counts.getOrDefault(keys[parent[node]], 0) > 1;
+            }
+            if (nested) {
+                continue;
+            }
+            List<int[]> positions = new ArrayList<>(nodes.size());
+            StringBuilder where = new StringBuilder();
+            long nanos = 0;
+            for (int node : nodes) {
+                positions.add(new int[] {spanStart[node], spanEnd[node]});
+                where.append(where.length() > 0 ? ", " : "").append(spanStart[node]).append(':').append(spanEnd[node]);
+                nanos += inclusive[node];
+            }
+            int node = nodes.get(0);
+            String text = expression.substring(spanStart[node], spanEnd[node]);
+            double share = share(nanos, total);
+            hints.add(new Hint(Hint.Kind.REPEATED, text, List.copyOf(positions), share,
+                    String.format("%s повторяется %d %s (позиции %s) и занимает %.1f%% времени: "
+                            + "его можно вычислить один раз", text, nodes.size(), times(nodes.size()), where,
+                            share * 100)));
+        }
+        return hints;
+    }
+
+    /**
+     * Расширяет отрезок поддерева {@code node} до сбалансированных скобок:
+     * в RPN нет скобок, поэтому отрезок из позиций токенов может обрезать
+     * скобки аргументов или вызова функции.
+     */
+    private static void balance(String source, int[] spanStart, int[] spanEnd, int node) {
+        int start = spanStart[node];
+        int end = spanEnd[node];
+        int depth = 0;
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (depth > 0) {
+                    depth--;
+                } else {
+                    // Закрывающая скобка без пары: её открывающая — перед отрезком
+                    int open = 1;
+                    while (start > 0 && open > 0) {
+                        char before = source.charAt(--start);
+                        open += before == ')' ? 1 : before == '(' ? -1 : 0;
+                    }
+                }
+            }
+        }
+        while (depth > 0 && end < source.length()) {
+            char c = source.charAt(end++);
+            depth += c == '(' ? 1 : c == ')' ? -1 : 0;
+        }
+        spanStart[node] = start;
+        spanEnd[node] = end;
+    }
+
+    private static String times(int count) {
+        int tens = count % 100;
+        int units = count % 10;
+        return units >= 2 && units <= 4 && (tens < 12 || tens > 14) ? "раза" : "раз";
+    }
+
+    private static double[] bind(Program program, Map<String, Double> variables) {
+        double[] values = new double[Math.max(program.variables.length, 1)];
+        for (int slot = 0; slot < program.variables.length; slot++) {
+            Double value = variables.get(program.variables[slot]);
+            if (value == null) {
+                throw program.missingVariable(slot);
+            }
+            values[slot] = value;
+        }
+        return values;
+    }
+
+    private static long time(Program program, double[] values, double[] stack, int iterations) {
+        double sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sum += program.run(values, stack);
+        }
+        long elapsed = System.nanoTime() - start;
+        sink = sum;
+        return elapsed;
+    }
+
+    private static double share(long nanos, long total) {
+        return total > 0 ? (double) nanos / total : 0;
+    }
+
+    /**
+     * Возвращает исходный текст выражения.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Возвращает результат вычисления выражения.
+     */
+    public double getResult() {
+        return result;
+    }
+
+    /**
+     * Возвращает количество вычислений в замере.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Возвращает время выражения за все вычисления замера без накладных
+     * расходов вызова, нс.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Возвращает время токенов в порядке RPN.
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Возвращает подсказки по упрощению выражения.
+     */
+    public List<Hint> getHints() {
+        return hints;
+    }
+
+    /**
+     * Возвращает отчёт: токены по убыванию собственного времени и подсказки.
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Профиль: %s (вычислений: %d, %.1f нс на вычисление)%n",
+                source, iterations, (double) totalNanos / iterations));
+        out.append(String.format("%-9s %-8s %9s %12s %7s  %s%n",
+                "Позиция", "Токен", "Вызовов", "Время, мкс", "Доля", "Поддерево"));
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+        for (Entry entry : sorted) {
+            out.append(String.format("%-9s %-8s %9d %12.1f %6.1f%%  %s%n",
+                    entry.getStart() + ":" + entry.getEnd(), entry.token.getValue(), entry.count,
+                    entry.nanos / 1000.0, entry.share * 100, entry.subtree));
+        }
+        if (!hints.isEmpty()) {
+            out.append("Подсказки:").append(System.lineSeparator());
+            for (Hint hint : hints) {
+                out.append("  ").append(hint.message).append(System.lineSeparator());
+            }
+        }
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ExpressionProfile{source=%s, iterations=%d, totalNanos=%d, hints=%d}",
+                source, iterations, totalNanos, hints.size());
+    }
+}
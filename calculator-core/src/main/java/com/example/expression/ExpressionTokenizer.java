@@ -0,0 +1,216 @@
+package com.example.expression;
+
+import com.example.metrics.Metrics;
+import com.example.metrics.PhaseMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Токенизатор математических выражений.
+ * <p>
+ * Разбивает входное выражение на последовательность токенов (лексем) для
+ * последующего синтаксического анализа и вычисления.
+ * </p>
+ * 
+ * <h3>Поддерживаемые токены:</h3>
+ * <ul>
+ * <li>Числа: целые и дробные (например, 123, 45.67)</li>
+ * <li>Операторы: +, -, *, /, ^</li>
+ * <li>Функции: sin, cos, tan, ln, log, sqrt и др.</li>
+ * <li>Константы: pi, e</li>
+ * <li>Скобки: (, )</li>
+ * <li>Разделитель: , (для функций с несколькими аргументами)</li>
+ * <li>Переменные: идентификаторы (a-z, A-Z, цифры, подчёркивание)</li>
+ * </ul>
+ * <p>
+ * Токенизатор не хранит состояния между вызовами и может использоваться
+ * из нескольких потоков одновременно.
+ * </p>
+ */
+public class ExpressionTokenizer {
+    
+    private final Map<String, TokenType> keywords;
+    
+    /**
+     * Создаёт токенизатор с заданными функциями и константами.
+     * 
+     * @param functions список имён поддерживаемых функций
+     * @param constants список имён поддерживаемых констант
+     */
+    public ExpressionTokenizer(List<String> functions, List<String> constants) {
+        this.keywords = buildKeywordsMap(functions, constants);
+    }
+    
+    /**
+     * Разбивает выражение на список токенов.
+     * <p>
+     * Сканирует строку за один проход, классифицируя токены по первому
+     * символу без регулярных выражений. Пробельные символы пропускаются.
+     * Время и ошибки учитываются в {@link Metrics#TOKENIZE}.
+     * </p>
+     * 
+     * @param expression математическое выражение
+     * @return список токенов
+     * @throws IllegalArgumentException если обнаружены недопустимые символы
+     */
+    public List<Token> tokenize(String expression) {
+        return PhaseMetrics.measure(Metrics.TOKENIZE, () -> scan(expression));
+    }
+
+    private List<Token> scan(String expression) {
+        List<Token> tokens = new ArrayList<>();
+        StringBuilder unknown = null;
+        int length = expression.length();
+        int pos = 0;
+        
+        while (pos < length) {
+            char c = expression.charAt(pos);
+            int start = pos;
+            
+            if (isWhitespace(c)) {
+                pos++;
+                continue;
+            }
+            
+            String symbol = symbolValue(c);
+            if (symbol != null) {
+                pos++;
+                tokens.add(new Token(symbolType(c), symbol, start, pos));
+                continue;
+            }
+            
+            // Числа (целые и дробные)
+            if (isDigit(c)) {
+                pos = skipDigits(expression, pos + 1);
+                if (pos + 1 < length && expression.charAt(pos) == '.' && isDigit(expression.charAt(pos + 1))) {
+                    pos = skipDigits(expression, pos + 2);
+                }
+                tokens.add(new Token(TokenType.NUMBER, expression.substring(start, pos), start, pos));
+                continue;
+            }
+            
+            // Идентификаторы: функции, константы и переменные
+            if (isIdentifierStart(c)) {
+                pos++;
+                while (pos < length && isIdentifierPart(expression.charAt(pos))) {
+                    pos++;
+                }
+                String value = expression.substring(start, pos);
+                TokenType keywordType = lookupKeyword(value);
+                tokens.add(new Token(keywordType != null ? keywordType : TokenType.VARIABLE, value, start, pos));
+                continue;
+            }
+            
+            // Прочие символы: ключевые слова из одного символа (π, √) или ошибка
+            pos += Character.charCount(expression.codePointAt(pos));
+            String value = expression.substring(start, pos);
+            TokenType keywordType = lookupKeyword(value);
+            if (keywordType != null) {
+                tokens.add(new Token(keywordType, value, start, pos));
+                continue;
+            }
+            
+            if (unknown == null) {
+                unknown = new StringBuilder("Недопустимые символы: ");
+            } else {
+                unknown.append(", ");
+            }
+            unknown.append('\'').append(value).append('\'');
+        }
+        
+        if (unknown != null) {
+            throw new IllegalArgumentException(unknown.toString());
+        }
+        
+        return tokens;
+    }
+    
+    /**
+     * Возвращает значение односимвольного токена (скобка, разделитель,
+     * оператор) или {@code null}, если символ к ним не относится.
+     */
+    private static String symbolValue(char c) {
+        switch (c) {
+            case '(': return "(";
+            case ')': return ")";
+            case ',': return ",";
+            case '+': return "+";
+            case '-': return "-";
+            case '*': return "*";
+            case '/': return "/";
+            case '^': return "^";
+            case '×': return "×";
+            case '÷': return "÷";
+            default: return null;
+        }
+    }
+    
+    /**
+     * Классифицирует односимвольный токен.
+     */
+    private static TokenType symbolType(char c) {
+        switch (c) {
+            case '(': return TokenType.LEFT_PAREN;
+            case ')': return TokenType.RIGHT_PAREN;
+            case ',': return TokenType.DELIMITER;
+            default: return TokenType.OPERATOR;
+        }
+    }
+    
+    /**
+     * Ищет ключевое слово без учёта регистра.
+     */
+    private TokenType lookupKeyword(String value) {
+        TokenType type = keywords.get(value);
+        if (type == null) {
+            String lower = value.toLowerCase();
+            if (!lower.equals(value)) {
+                type = keywords.get(lower);
+            }
+        }
+        return type;
+    }
+    
+    private static int skipDigits(String expression, int pos) {
+        while (pos < expression.length() && isDigit(expression.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+    
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+    
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || isDigit(c);
+    }
+    
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+    
+    /**
+     * Создаёт карту ключевых слов (функции и константы).
+     */
+    private Map<String, TokenType> buildKeywordsMap(List<String> functions, List<String> constants) {
+        Map<String, TokenType> map = new HashMap<>();
+        
+        for (String func : functions) {
+            map.put(func.toLowerCase(), TokenType.FUNCTION);
+        }
+        
+        for (String constant : constants) {
+            map.put(constant.toLowerCase(), TokenType.CONSTANT);
+        }
+        
+        return map;
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.expression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Компилятор программ в байт-код JVM.
+ * <p>
+ * Для каждой {@link Program} генерирует скрытый класс
+ * ({@link MethodHandles.Lookup#defineHiddenClass}), реализующий
+ * {@link JitFunction}. Метод класса вычисляет выражение напрямую: числа
+ * загружаются из пула констант класса, переменные один раз читаются из
+ * массива в локальные переменные, операторы становятся инструкциями
+ * {@code dadd}/{@code dmul}/..., а функции — вызовами {@code Math.*} или
+ * проверяющих методов {@link ExpressionDefinitions}. Такой метод HotSpot
+ * компилирует и встраивает как обычный Java-код.
+ * </p>
+ * <p>
+ * Код прямолинейный (без переходов), поэтому таблица StackMapTable не нужна.
+ * Если программа вызывает функции, не входящие во встроенный набор, или
+ * превышает ограничения формата class-файла, компиляция не выполняется.
+ * </p>
+ */
+final class JitCompiler {
+
+    /** Функция, вычисляющая выражение по значениям переменных в порядке слотов. */
+    interface JitFunction {
+        double evaluate(double[] variables);
+    }
+
+    private static final String CLASS_NAME = "com/example/expression/JitExpression";
+    private static final String DEFINITIONS = "com/example/expression/ExpressionDefinitions";
+    private static final String MATH = "java/lang/Math";
+    private static final String UNARY = "(D)D";
+    private static final String BINARY = "(DD)D";
+
+    /** Встроенные функции и соответствующие им статические методы: {владелец, имя, дескриптор}. */
+    private static final Map<ExpressionEvaluator.Definition, String[]> INTRINSICS = new IdentityHashMap<>();
+
+    static {
+        intrinsic("sin", MATH, "sin", UNARY);
+        intrinsic("cos", MATH, "cos", UNARY);
+        intrinsic("tan", MATH, "tan", UNARY);
+        intrinsic("cot", DEFINITIONS, "cot", UNARY);
+        intrinsic("ln", DEFINITIONS, "ln", UNARY);
+        intrinsic("log", DEFINITIONS, "log", UNARY);
+        intrinsic("sqrt", DEFINITIONS, "sqrt", UNARY);
+        intrinsic("√", DEFINITIONS, "sqrt", UNARY);
+        intrinsic("abs", MATH, "abs", UNARY);
+        intrinsic("exp", MATH, "exp", UNARY);
+        intrinsic("max", MATH, "max", BINARY);
+        intrinsic("min", MATH, "min", BINARY);
+    }
+
+    private static void intrinsic(String function, String owner, String name, String descriptor) {
+        INTRINSICS.put(ExpressionDefinitions.FUNCTIONS.get(function), new String[] { owner, name, descriptor });
+    }
+
+    private JitCompiler() {
+    }
+
+    /**
+     * Компилирует программу в скрытый класс.
+     *
+     * @param program программа
+     * @return функция или {@code null}, если программу нельзя скомпилировать
+     */
+    static JitFunction compile(Program program) {
+        byte[] bytes = generate(program);
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (JitFunction) lookup
+                    .findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Не удалось создать скомпилированное выражение", e);
+        }
+    }
+
+    /**
+     * Генерирует class-файл для программы.
+     */
+    static byte[] generate(Program program) {
+        int variables = program.variables.length;
+        int maxLocals = 2 + 2 * variables;
+        if (variables > Short.MAX_VALUE || maxLocals > 0xFFFF) {
+            return null;
+        }
+
+        ConstantPool pool = new ConstantPool();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        // Переменные читаются из массива один раз
+        for (int slot = 0; slot < variables; slot++) {
+            body.write(0x2b); // aload_1
+            pushInt(body, slot);
+            body.write(0x31); // daload
+            localInstruction(body, 0x39, 2 + 2 * slot); // dstore
+        }
+
+        for (int insn : program.code) {
+            int operand = Program.operand(insn);
+            switch (Program.opcode(insn)) {
+                case Program.CONST:
+                    pushDouble(body, pool, program.constants[operand]);
+                    break;
+                case Program.VAR:
+                    localInstruction(body, 0x18, 2 + 2 * operand); // dload
+                    break;
+                case Program.ADD:
+                    body.write(0x63); // dadd
+                    break;
+                case Program.SUB:
+                    body.write(0x67); // dsub
+                    break;
+                case Program.MUL:
+                    body.write(0x6b); // dmul
+                    break;
+                case Program.DIV:
+                    invokeStatic(body, pool, DEFINITIONS, "divide", BINARY);
+                    break;
+                case Program.POW:
+                    invokeStatic(body, pool, MATH, "pow", BINARY);
+                    break;
+                case Program.NEG:
+                    body.write(0x77); // dneg
+                    break;
+                default: {
+                    String[] target = INTRINSICS.get(program.targets[operand]);
+                    if (target == null) {
+                        return null;
+                    }
+                    invokeStatic(body, pool, target[0], target[1], target[2]);
+                    break;
+                }
+            }
+        }
+        body.write(0xaf); // dreturn
+
+        if (body.size() > 0xFFFF) {
+            return null;
+        }
+
+        int thisClass = pool.classRef(CLASS_NAME);
+        int superClass = pool.classRef("java/lang/Object");
+        int functionInterface = pool.classRef("com/example/expression/JitCompiler$JitFunction");
+        int objectInit = pool.methodRef("java/lang/Object", "<init>", "()V");
+        int initName = pool.utf8("<init>");
+        int initDescriptor = pool.utf8("()V");
+        int evaluateName = pool.utf8("evaluate");
+        int evaluateDescriptor = pool.utf8("([D)D");
+        int codeName = pool.utf8("Code");
+        if (pool.count > 0xFFFF) {
+            return null;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(61); // Java 17
+            out.writeShort(pool.count);
+            pool.bytes.writeTo(out);
+            out.writeShort(0x0030); // ACC_FINAL | ACC_SUPER
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(functionInterface);
+            out.writeShort(0); // поля
+            out.writeShort(2); // методы
+
+            // public <init>() { super(); }
+            byte[] init = { 0x2a, (byte) 0xb7, (byte) (objectInit >> 8), (byte) objectInit, (byte) 0xb1 };
+            writeMethod(out, 0x0001, initName, initDescriptor, codeName, 1, 1, init);
+
+            // public double evaluate(double[] variables)
+            writeMethod(out, 0x0001, evaluateName, evaluateDescriptor, codeName,
+                    Math.max(2, 2 * program.maxStackDepth), maxLocals, body.toByteArray());
+
+            out.writeShort(0); // атрибуты класса
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeMethod(DataOutputStream out, int access, int name, int descriptor,
+            int codeName, int maxStack, int maxLocals, byte[] code) throws IOException {
+        out.writeShort(access);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeName);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // таблица исключений
+        out.writeShort(0); // атрибуты Code
+    }
+
+    private static void pushInt(ByteArrayOutputStream body, int value) {
+        if (value <= 5) {
+            body.write(0x03 + value); // iconst_<n>
+        } else if (value <= Byte.MAX_VALUE) {
+            body.write(0x10); // bipush
+            body.write(value);
+        } else {
+            body.write(0x11); // sipush
+            body.write(value >> 8);
+            body.write(value);
+        }
+    }
+
+    private static void pushDouble(ByteArrayOutputStream body, ConstantPool pool, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        if (bits == 0L) {
+            body.write(0x0e); // dconst_0
+        } else if (bits == Double.doubleToRawLongBits(1.0)) {
+            body.write(0x0f); // dconst_1
+        } else {
+            int index = pool.doubleConstant(value);
+            body.write(0x14); // ldc2_w
+            body.write(index >> 8);
+            body.write(index);
+        }
+    }
+
+    private static void localInstruction(ByteArrayOutputStream body, int opcode, int index) {
+        if (index <= 0xFF) {
+            body.write(opcode);
+            body.write(index);
+        } else {
+            body.write(0xc4); // wide
+            body.write(opcode);
+            body.write(index >> 8);
+            body.write(index);
+        }
+    }
+
+    private static void invokeStatic(ByteArrayOutputStream body, ConstantPool pool,
+            String owner, String name, String descriptor) {
+        int index = pool.methodRef(owner, name, descriptor);
+        body.write(0xb8); // invokestatic
+        body.write(index >> 8);
+        body.write(index);
+    }
+
+    /**
+     * Пул констант class-файла с повторным использованием записей.
+     */
+    private static final class ConstantPool {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        final Map<String, Integer> entries = new HashMap<>();
+        int count = 1;
+
+        int utf8(String value) {
+            return entry("U" + value, 1, 1, () -> out.writeUTF(value));
+        }
+
+        int classRef(String internalName) {
+            int name = utf8(internalName);
+            return entry("C" + internalName, 7, 1, () -> out.writeShort(name));
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            int ownerIndex = classRef(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int nameAndType = entry("N" + name + descriptor, 12, 1, () -> {
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+            });
+            return entry("M" + owner + "." + name + descriptor, 10, 1, () -> {
+                out.writeShort(ownerIndex);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        int doubleConstant(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            // Значения double занимают в пуле две записи
+            return entry("D" + bits, 6, 2, () -> out.writeLong(bits));
+        }
+
+        private int entry(String key, int tag, int slots, Body body) {
+            Integer index = entries.get(key);
+            if (index != null) {
+                return index;
+            }
+            try {
+                out.writeByte(tag);
+                body.write();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            index = count;
+            count += slots;
+            entries.put(key, index);
+            return index;
+        }
+
+        @FunctionalInterface
+        private interface Body {
+            void write() throws IOException;
+        }
+    }
+}
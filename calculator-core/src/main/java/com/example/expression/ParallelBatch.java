@@ -0,0 +1,135 @@
+package com.example.expression;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Параллельное пакетное вычисление.
+ * <p>
+ * Диапазон строк делится на части, каждую из которых вычисляет свой
+ * {@link BatchEvaluator} со своими рабочими буферами. Части пишут в
+ * непересекающиеся участки общего массива результатов, поэтому блокировки
+ * не нужны: видимость записей обеспечивает завершение задач
+ * ({@code join}).
+ * </p>
+ * <p>
+ * Размер части подбирается по числу инструкций: чем длиннее программа, тем
+ * меньше строк в одной части, так что объём работы на задачу примерно
+ * постоянен.
+ * </p>
+ * <p>
+ * Если вычисление строки бросает исключение, части правее уже найденной
+ * ошибки пропускаются, а по завершении бросается
+ * {@link BatchEvaluationException} с номером наименьшей ошибочной строки.
+ * </p>
+ */
+final class ParallelBatch {
+
+    /** Примерное число «инструкций × строк» на одну задачу. */
+    private static final long WORK_PER_TASK = 1L << 18;
+
+    /** Наименьший размер части. */
+    private static final int MIN_ROWS = 4 * BatchEvaluator.BLOCK_SIZE;
+
+    private final Program program;
+    private final JitCompiler.JitFunction jit;
+    private final double[][] columns;
+    private final double[] out;
+    private final int rowsPerTask;
+
+    private final AtomicInteger failedRow = new AtomicInteger(Integer.MAX_VALUE);
+    private RuntimeException failure;
+
+    ParallelBatch(Program program, JitCompiler.JitFunction jit, double[][] columns, double[] out) {
+        this.program = program;
+        this.jit = jit;
+        this.columns = columns;
+        this.out = out;
+        this.rowsPerTask = rowsPerTask(program);
+    }
+
+    /**
+     * Возвращает число строк в одной части для программы.
+     */
+    static int rowsPerTask(Program program) {
+        long rows = WORK_PER_TASK / Math.max(1, program.size());
+        return (int) Math.max(MIN_ROWS, rows);
+    }
+
+    /**
+     * Вычисляет строки {@code [from, to)}.
+     *
+     * @param executor пул; для {@link ForkJoinPool} используется рекурсивное
+     *                 деление с перехватом задач, для остальных — задачи
+     *                 фиксированного размера
+     * @throws BatchEvaluationException если вычисление какой-либо строки
+     *                                  завершилось ошибкой
+     */
+    void run(int from, int to, Executor executor) {
+        if (to - from <= rowsPerTask) {
+            evaluate(from, to);
+        } else if (executor instanceof ForkJoinPool) {
+            ((ForkJoinPool) executor).invoke(new Split(from, to));
+        } else {
+            int tasks = (int) ((to - from + (long) rowsPerTask - 1) / rowsPerTask);
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks];
+            for (int i = 0; i < tasks; i++) {
+                int start = from + i * rowsPerTask;
+                int end = Math.min(to, start + rowsPerTask);
+                futures[i] = CompletableFuture.runAsync(() -> evaluate(start, end), executor);
+            }
+            CompletableFuture.allOf(futures).join();
+        }
+
+        synchronized (this) {
+            if (failure != null) {
+                throw new BatchEvaluationException(failedRow.get(), failure);
+            }
+        }
+    }
+
+    private void evaluate(int from, int to) {
+        if (from > failedRow.get()) {
+            return;
+        }
+        BatchEvaluator batch = new BatchEvaluator(program, jit);
+        try {
+            batch.run(columns, out, from, to);
+        } catch (RuntimeException e) {
+            fail(batch.row, e);
+        }
+    }
+
+    private synchronized void fail(int row, RuntimeException e) {
+        if (row < failedRow.get()) {
+            failedRow.set(row);
+            failure = e;
+        }
+    }
+
+    /**
+     * Рекурсивное деление диапазона пополам до размера одной части.
+     */
+    private final class Split extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        Split(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= rowsPerTask) {
+                evaluate(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Split(from, middle), new Split(middle, to));
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.expression;
 
+import com.example.metrics.Metrics;
+import com.example.metrics.PhaseMetrics;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -41,12 +44,19 @@ public class PrattParser {
     
     /**
      * Парсит список токенов и возвращает RPN (обратную польскую нотацию).
+     * <p>
+     * Время и ошибки учитываются в {@link Metrics#PARSE}.
+     * </p>
      * 
      * @param tokens список токенов
      * @return список токенов в RPN
      * @throws IllegalArgumentException при синтаксических ошибках
      */
     public List<Token> parse(List<Token> tokens) {
+        return PhaseMetrics.measure(Metrics.PARSE, () -> parseTokens(tokens));
+    }
+
+    private List<Token> parseTokens(List<Token> tokens) {
         this.tokens = filterWhitespace(tokens);
         this.position = 0;
         
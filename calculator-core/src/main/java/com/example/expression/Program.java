@@ -0,0 +1,170 @@
+package com.example.expression;
+
+import java.util.Map;
+
+/**
+ * Выражение, пониженное из RPN в компактный массив инструкций.
+ * <p>
+ * Каждая инструкция занимает одно {@code int}: младшие {@value #OP_BITS}
+ * бит — код операции, остальные — операнд (индекс в пуле констант, в
+ * таблице переменных или в таблице привязанных функций). Числа и константы
+ * разобраны заранее и лежат в пуле {@code double[]}, функции и операторы
+ * привязаны к своим определениям, поэтому цикл вычисления сводится к
+ * {@code switch} по коду операции.
+ * </p>
+ * <p>
+ * Индекс инструкции совпадает с индексом исходного токена RPN, что
+ * позволяет сообщать позицию ошибки в исходном выражении.
+ * </p>
+ *
+ * @see ExpressionEvaluator#compile(java.util.List)
+ */
+final class Program {
+
+    static final int OP_BITS = 8;
+    static final int OP_MASK = (1 << OP_BITS) - 1;
+
+    /** Положить значение из пула констант. */
+    static final int CONST = 0;
+    /** Положить значение переменной. */
+    static final int VAR = 1;
+    static final int ADD = 2;
+    static final int SUB = 3;
+    static final int MUL = 4;
+    static final int DIV = 5;
+    static final int POW = 6;
+    static final int NEG = 7;
+    /** Вызов одноаргументного определения. */
+    static final int CALL1 = 8;
+    /** Вызов двухаргументного определения. */
+    static final int CALL2 = 9;
+    /** Вызов определения с произвольным числом аргументов. */
+    static final int CALLN = 10;
+
+    final int[] code;
+    final double[] constants;
+    final String[] variables;
+    final Map<String, Integer> slots;
+    final ExpressionEvaluator.Definition[] targets;
+    final Token[] tokens;
+    final int maxStackDepth;
+
+    Program(int[] code, double[] constants, String[] variables, Map<String, Integer> slots,
+            ExpressionEvaluator.Definition[] targets, Token[] tokens, int maxStackDepth) {
+        this.code = code;
+        this.constants = constants;
+        this.variables = variables;
+        this.slots = slots;
+        this.targets = targets;
+        this.tokens = tokens;
+        this.maxStackDepth = maxStackDepth;
+    }
+
+    static int encode(int op, int operand) {
+        return op | (operand << OP_BITS);
+    }
+
+    static int opcode(int insn) {
+        return insn & OP_MASK;
+    }
+
+    static int operand(int insn) {
+        return insn >>> OP_BITS;
+    }
+
+    /**
+     * Возвращает количество инструкций.
+     */
+    int size() {
+        return code.length;
+    }
+
+    /**
+     * Выполняет программу.
+     *
+     * @param values значения переменных по слотам (см. {@link #variables})
+     * @param stack  рабочий стек длиной не меньше {@link #maxStackDepth}
+     * @return результат вычисления
+     */
+    double run(double[] values, double[] stack) {
+        return execute(values, stack, -1);
+    }
+
+    /**
+     * Выполняет программу, в которой значение переменной в слоте
+     * {@code missing} не задано.
+     * <p>
+     * Слоты нумеруются в порядке первого появления переменных в программе,
+     * поэтому первым незаданным значением, которое встретит вычисление,
+     * будет именно этот слот. Ошибки, возникающие раньше, сообщаются как обычно.
+     * </p>
+     *
+     * @throws IllegalArgumentException всегда
+     */
+    double runMissing(double[] values, double[] stack, int missing) {
+        execute(values, stack, missing);
+        throw missingVariable(missing);
+    }
+
+    IllegalArgumentException missingVariable(int slot) {
+        return new IllegalArgumentException(
+                String.format("Значение переменной '%s' не задано", variables[slot]));
+    }
+
+    private double execute(double[] values, double[] stack, int missing) {
+        int[] code = this.code;
+        int sp = 0;
+
+        for (int pc = 0; pc < code.length; pc++) {
+            int insn = code[pc];
+            switch (insn & OP_MASK) {
+                case CONST:
+                    stack[sp++] = constants[insn >>> OP_BITS];
+                    break;
+                case VAR: {
+                    int slot = insn >>> OP_BITS;
+                    if (slot == missing) {
+                        throw missingVariable(slot);
+                    }
+                    stack[sp++] = values[slot];
+                    break;
+                }
+                case ADD:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] + stack[sp];
+                    break;
+                case SUB:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] - stack[sp];
+                    break;
+                case MUL:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] * stack[sp];
+                    break;
+                case DIV:
+                    sp--;
+                    stack[sp - 1] = ExpressionDefinitions.divide(stack[sp - 1], stack[sp]);
+                    break;
+                case POW:
+                    sp--;
+                    stack[sp - 1] = Math.pow(stack[sp - 1], stack[sp]);
+                    break;
+                case NEG:
+                    stack[sp - 1] = -stack[sp - 1];
+                    break;
+                case CALL1:
+                    stack[sp - 1] = targets[insn >>> OP_BITS].unary.applyAsDouble(stack[sp - 1]);
+                    break;
+                case CALL2:
+                    sp--;
+                    stack[sp - 1] = targets[insn >>> OP_BITS].binary.applyAsDouble(stack[sp - 1], stack[sp]);
+                    break;
+                default:
+                    sp = targets[insn >>> OP_BITS].apply(stack, sp);
+                    break;
+            }
+        }
+
+        return stack[0];
+    }
+}
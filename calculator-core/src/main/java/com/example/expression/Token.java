@@ -0,0 +1,104 @@
+package com.example.expression;
+
+/**
+ * Представляет токен (лексему) математического выражения.
+ * <p>
+ * Токен содержит тип (число, оператор, функция и т.д.), значение и позицию
+ * в исходном выражении для точной диагностики ошибок.
+ * </p>
+ */
+public class Token {
+    private final TokenType type;
+    private final String value;
+    private final int start;
+    private final int end;
+    private final double number;
+    private final boolean hasNumber;
+
+    /**
+     * Создаёт новый токен.
+     * 
+     * @param type тип токена
+     * @param value строковое значение токена
+     * @param start начальная позиция в выражении
+     * @param end конечная позиция в выражении
+     */
+    public Token(TokenType type, String value, int start, int end) {
+        this(type, value, start, end, 0, false);
+    }
+
+    private Token(TokenType type, String value, int start, int end, double number, boolean hasNumber) {
+        this.type = type;
+        this.value = value;
+        this.start = start;
+        this.end = end;
+        this.number = number;
+        this.hasNumber = hasNumber;
+    }
+
+    /**
+     * Создаёт числовой токен с уже разобранным значением.
+     * <p>
+     * Вычислитель и оптимизатор берут значение из токена и не разбирают
+     * строку повторно.
+     * </p>
+     * 
+     * @param value строковое значение токена
+     * @param number значение числа
+     * @param start начальная позиция в выражении
+     * @param end конечная позиция в выражении
+     * @return токен типа {@link TokenType#NUMBER}
+     */
+    public static Token number(String value, double number, int start, int end) {
+        return new Token(TokenType.NUMBER, value, start, end, number, true);
+    }
+
+    /**
+     * Возвращает копию токена, сдвинутую на {@code offset} позиций.
+     */
+    public Token shift(int offset) {
+        return new Token(type, value, start + offset, end + offset, number, hasNumber);
+    }
+
+    public TokenType getType() {
+        return type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Возвращает {@code true}, если значение числа уже разобрано
+     * (см. {@link #number(String, double, int, int)}).
+     */
+    public boolean hasNumber() {
+        return hasNumber;
+    }
+
+    /**
+     * Возвращает разобранное значение числа.
+     * 
+     * @throws IllegalStateException если значение не разобрано
+     */
+    public double getNumber() {
+        if (!hasNumber) {
+            throw new IllegalStateException("Значение токена не разобрано: " + value);
+        }
+        return number;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Token{type=%s, value='%s', pos=%d:%d}", 
+            type, value, start, end);
+    }
+}
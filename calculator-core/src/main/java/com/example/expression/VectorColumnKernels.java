@@ -0,0 +1,141 @@
+package com.example.expression;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Операции над столбцами на Vector API ({@code jdk.incubator.vector}).
+ * <p>
+ * Каждая операция обрабатывает {@code SPECIES.length()} элементов за
+ * инструкцию (4 на AVX2, 8 на AVX-512), хвост — скалярным циклом.
+ * Сложение, вычитание, умножение, деление, смена знака, модуль, корень,
+ * минимум и максимум в IEEE 754 вычисляются точно, поэтому результат
+ * совпадает со скалярным. Возведение в степень остаётся скалярным:
+ * векторный {@code POW} допускает погрешность в 1 ulp.
+ * </p>
+ * <p>
+ * Проверки области определения выполняются маской по всему вектору. Если
+ * хотя бы один элемент недопустим, остаток столбца досчитывается скалярным
+ * кодом, который и бросает исключение.
+ * </p>
+ * <p>
+ * Загружается только через {@link ColumnKernels#INSTANCE}, когда модуль
+ * доступен (например, {@code --add-modules jdk.incubator.vector}).
+ * </p>
+ */
+final class VectorColumnKernels extends ColumnKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /** Порог делителя из {@link ExpressionDefinitions#divide(double, double)}. */
+    private static final double DIVISOR_EPSILON = 1e-10;
+
+    @Override
+    boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    void add(double[] a, double[] b, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).add(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+        }
+        for (; i < n; i++) {
+            a[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    void subtract(double[] a, double[] b, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).sub(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+        }
+        for (; i < n; i++) {
+            a[i] = a[i] - b[i];
+        }
+    }
+
+    @Override
+    void multiply(double[] a, double[] b, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).mul(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+        }
+        for (; i < n; i++) {
+            a[i] = a[i] * b[i];
+        }
+    }
+
+    @Override
+    void divide(double[] a, double[] b, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector divisor = DoubleVector.fromArray(SPECIES, b, i);
+            if (divisor.abs().compare(VectorOperators.LT, DIVISOR_EPSILON).anyTrue()) {
+                break;
+            }
+            DoubleVector.fromArray(SPECIES, a, i).div(divisor).intoArray(a, i);
+        }
+        divide(a, b, i, n);
+    }
+
+    @Override
+    void negate(double[] a, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).neg().intoArray(a, i);
+        }
+        for (; i < n; i++) {
+            a[i] = -a[i];
+        }
+    }
+
+    @Override
+    void abs(double[] a, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).abs().intoArray(a, i);
+        }
+        for (; i < n; i++) {
+            a[i] = Math.abs(a[i]);
+        }
+    }
+
+    @Override
+    void sqrt(double[] a, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector value = DoubleVector.fromArray(SPECIES, a, i);
+            if (value.compare(VectorOperators.LT, 0.0).anyTrue()) {
+                break;
+            }
+            value.sqrt().intoArray(a, i);
+        }
+        sqrt(a, i, n);
+    }
+
+    @Override
+    void min(double[] a, double[] b, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).min(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+        }
+        for (; i < n; i++) {
+            a[i] = Math.min(a[i], b[i]);
+        }
+    }
+
+    @Override
+    void max(double[] a, double[] b, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).max(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+        }
+        for (; i < n; i++) {
+            a[i] = Math.max(a[i], b[i]);
+        }
+    }
+}
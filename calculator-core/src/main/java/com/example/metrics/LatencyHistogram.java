@@ -0,0 +1,105 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма задержек в наносекундах с логарифмически-линейными корзинами,
+ * как в HdrHistogram.
+ * <p>
+ * Значения до {@value #SUB_BUCKETS} нс хранятся точно, а каждый следующий
+ * интервал {@code [2^k, 2^(k+1))} делится на {@value #SUB_BUCKETS} равных
+ * корзин, так что относительная погрешность не больше 1/16 (6,25 %) во всём
+ * диапазоне {@code long}. Запись — одно атомарное приращение без выделения
+ * памяти. Чтобы потоки не спорили за одни и те же строки кэша, счётчики
+ * разбиты на полосы по номеру потока; полосы складываются при чтении.
+ * </p>
+ */
+final class LatencyHistogram {
+
+    /** Двоичный логарифм количества корзин на степень двойки. */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** Корзин на степень двойки. */
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Корзин всего: покрывают значения до {@link Long#MAX_VALUE}. */
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) << SUB_BUCKET_BITS;
+
+    /** Количество полос: степень двойки не меньше числа процессоров. */
+    private static final int STRIPES = Integer.highestOneBit(
+            Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+
+    /**
+     * Учитывает одно значение; отрицательные считаются нулём.
+     *
+     * @param nanos задержка, нс
+     */
+    void record(long nanos) {
+        int stripe = (int) Thread.currentThread().threadId() & (STRIPES - 1);
+        counts.getAndIncrement(stripe * BUCKETS + bucket(nanos));
+    }
+
+    /**
+     * Возвращает номер корзины значения.
+     */
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Возвращает наибольшее значение, попадающее в корзину.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long mantissa = SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1));
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * Возвращает значение, не превышаемое заданной долей измерений, с
+     * точностью до корзины (верхняя граница корзины).
+     *
+     * @param percentile процентиль от 0 до 100
+     * @return значение, нс; 0, если измерений нет
+     */
+    long percentile(double percentile) {
+        long[] merged = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            long count = counts.get(i);
+            merged[i % BUCKETS] += count;
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += merged[bucket];
+            if (seen >= rank) {
+                return upperBound(bucket);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * Обнуляет гистограмму. Значения, записываемые одновременно со сбросом,
+     * могут как учесться, так и пропасть.
+     */
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+}
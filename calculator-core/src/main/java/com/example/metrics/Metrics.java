@@ -0,0 +1,115 @@
+package com.example.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Встроенные метрики движка выражений: количество вызовов, время и ошибки
+ * по этапам.
+ * <p>
+ * Замеряются {@code ExpressionTokenizer.tokenize} ({@link #TOKENIZE}),
+ * {@code PrattParser.parse} ({@link #PARSE}), вычисление одного выражения в
+ * {@code ExpressionEvaluator} и {@code CompiledExpression} ({@link #EVALUATE})
+ * и {@code NumberFormatter.format} ({@link #FORMAT}). Пакетное вычисление
+ * столбцов не замеряется: его время на строку составляет единицы
+ * наносекунд, меньше стоимости самого замера.
+ * </p>
+ *
+ * <h3>Включение</h3>
+ * <p>
+ * Метрики выключены по умолчанию и включаются системным свойством
+ * {@code -Dcom.example.metrics=true}. Свойство читается один раз в
+ * {@code static final} поле {@link #ENABLED}; JIT-компилятор считает его
+ * константой, поэтому при выключенных метриках замеряемые методы
+ * компилируются без замера: ни {@link System#nanoTime()}, ни обращений к
+ * счётчикам.
+ * </p>
+ *
+ * <h3>JMX</h3>
+ * <p>
+ * При включённых метриках каждый этап регистрируется в платформенном
+ * MBean-сервере как {@link PhaseMetricsMXBean} с именем
+ * {@code com.example.calculator:type=Metrics,phase=ЭТАП} и виден в JConsole
+ * и JDK Mission Control.
+ * </p>
+ */
+public final class Metrics {
+
+    /** Системное свойство, включающее метрики. */
+    public static final String PROPERTY = "com.example.metrics";
+
+    /** Включены ли метрики; не меняется после загрузки класса. */
+    public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    /** Домен имён MBean. */
+    public static final String DOMAIN = "com.example.calculator";
+
+    /** Токенизация строки выражения. */
+    public static final PhaseMetrics TOKENIZE = new PhaseMetrics("tokenize");
+
+    /** Разбор токенов в RPN. */
+    public static final PhaseMetrics PARSE = new PhaseMetrics("parse");
+
+    /** Вычисление выражения. */
+    public static final PhaseMetrics EVALUATE = new PhaseMetrics("evaluate");
+
+    /** Форматирование результата. */
+    public static final PhaseMetrics FORMAT = new PhaseMetrics("format");
+
+    private static final List<PhaseMetrics> PHASES = List.of(TOKENIZE, PARSE, EVALUATE, FORMAT);
+
+    private static final System.Logger LOGGER = System.getLogger(Metrics.class.getName());
+
+    static {
+        if (ENABLED) {
+            register();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Возвращает метрики всех этапов в порядке обработки выражения.
+     */
+    public static List<PhaseMetrics> phases() {
+        return PHASES;
+    }
+
+    /**
+     * Обнуляет метрики всех этапов.
+     */
+    public static void reset() {
+        PHASES.forEach(PhaseMetrics::reset);
+    }
+
+    /**
+     * Возвращает имя MBean этапа.
+     *
+     * @param phase метрики этапа
+     * @return имя вида {@code com.example.calculator:type=Metrics,phase=parse}
+     */
+    public static ObjectName objectName(PhaseMetrics phase) {
+        try {
+            return new ObjectName(DOMAIN + ":type=Metrics,phase=" + phase.getName());
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (PhaseMetrics phase : PHASES) {
+            try {
+                server.registerMBean(phase, objectName(phase));
+            } catch (JMException e) {
+                LOGGER.log(System.Logger.Level.WARNING,
+                        "Не удалось зарегистрировать метрики этапа " + phase.getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Счётчики, время и ошибки одного этапа.
+ * <p>
+ * Замеряемые методы проходят через {@link #measure(PhaseMetrics, Supplier)}:
+ * успешный вызов учитывается в {@link #record(long)}, исключение — в
+ * {@link #failed(Throwable)}. Счётчики — {@link LongAdder}, поэтому запись
+ * из многих потоков не упирается в одну переменную.
+ * </p>
+ *
+ * <h3>Пример:</h3>
+ * <pre>
+ * public List&lt;Token&gt; parse(List&lt;Token&gt; tokens) {
+ *     return PhaseMetrics.measure(Metrics.PARSE, () -&gt; parseTokens(tokens));
+ * }
+ * </pre>
+ */
+public final class PhaseMetrics implements PhaseMetricsMXBean {
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+
+    PhaseMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Выполняет этап и учитывает его время и ошибки.
+     * <p>
+     * При выключенных метриках просто вызывает {@code body}: после
+     * встраивания проверка {@link Metrics#ENABLED} исчезает, а объект
+     * лямбды не создаётся.
+     * </p>
+     *
+     * @param phase метрики этапа
+     * @param body  работа этапа
+     * @return результат {@code body}
+     */
+    public static <T> T measure(PhaseMetrics phase, Supplier<T> body) {
+        if (!Metrics.ENABLED) {
+            return body.get();
+        }
+        long start = System.nanoTime();
+        try {
+            T result = body.get();
+            phase.record(start);
+            return result;
+        } catch (RuntimeException e) {
+            phase.failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Выполняет этап с результатом {@code double} без упаковки.
+     *
+     * @see #measure(PhaseMetrics, Supplier)
+     */
+    public static double measure(PhaseMetrics phase, DoubleSupplier body) {
+        if (!Metrics.ENABLED) {
+            return body.getAsDouble();
+        }
+        long start = System.nanoTime();
+        try {
+            double result = body.getAsDouble();
+            phase.record(start);
+            return result;
+        } catch (RuntimeException e) {
+            phase.failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Учитывает успешный вызов, начатый в момент {@code startNanos}.
+     *
+     * @param startNanos значение {@link System#nanoTime()} в начале вызова
+     */
+    public void record(long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        histogram.record(nanos);
+    }
+
+    /**
+     * Учитывает вызов, завершившийся исключением.
+     *
+     * @param error исключение вызова
+     */
+    public void failed(Throwable error) {
+        errors.increment();
+        errorsByType.computeIfAbsent(error.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByType() {
+        Map<String, Long> result = new TreeMap<>();
+        errorsByType.forEach((type, counter) -> result.put(type, counter.sum()));
+        return result;
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    @Override
+    public double getMeanNanos() {
+        long calls = count.sum();
+        return calls == 0 ? 0 : (double) totalNanos.sum() / calls;
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return getPercentileNanos(50);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return getPercentileNanos(90);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return getPercentileNanos(99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return getPercentileNanos(99.9);
+    }
+
+    /**
+     * Возвращает процентиль времени успешного вызова.
+     *
+     * @param percentile процентиль от 0 до 100
+     * @return время, нс, с точностью до корзины гистограммы; 0, если вызовов не было
+     */
+    public long getPercentileNanos(double percentile) {
+        return histogram.percentile(percentile);
+    }
+
+    @Override
+    public void reset() {
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+        histogram.reset();
+        errors.reset();
+        errorsByType.clear();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d вызовов, среднее %.0f нс, p50 %d нс, p99 %d нс, макс. %d нс, ошибок %d %s",
+                name, getCount(), getMeanNanos(), getP50Nanos(), getP99Nanos(), getMaxNanos(),
+                getErrorCount(), getErrorsByType());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.metrics;
+
+import java.util.Map;
+
+/**
+ * Метрики одного этапа обработки выражения, доступные через JMX.
+ * <p>
+ * Время — в наносекундах. Процентили считаются по гистограмме с
+ * относительной погрешностью не больше 6,25 %.
+ * </p>
+ */
+public interface PhaseMetricsMXBean {
+
+    /** Имя этапа: {@code tokenize}, {@code parse}, {@code evaluate} или {@code format}. */
+    String getName();
+
+    /** Успешных вызовов. */
+    long getCount();
+
+    /** Вызовов, завершившихся исключением. */
+    long getErrorCount();
+
+    /** Количество ошибок по простому имени класса исключения. */
+    Map<String, Long> getErrorsByType();
+
+    /** Суммарное время успешных вызовов. */
+    long getTotalNanos();
+
+    /** Среднее время успешного вызова. */
+    double getMeanNanos();
+
+    /** Наибольшее время успешного вызова. */
+    long getMaxNanos();
+
+    /** Медиана времени успешного вызова. */
+    long getP50Nanos();
+
+    /** 90-й процентиль времени успешного вызова. */
+    long getP90Nanos();
+
+    /** 99-й процентиль времени успешного вызова. */
+    long getP99Nanos();
+
+    /** 99,9-й процентиль времени успешного вызова. */
+    long getP999Nanos();
+
+    /** Обнуляет метрики этапа. */
+    void reset();
+}
@@ -0,0 +1,737 @@
+package com.example.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * История вычислений калькулятора.
+ * <p>
+ * История не ограничена по размеру. Созданная конструктором история хранится
+ * только в памяти; открытая через {@link #open(Path, Sync, int)} — в
+ * журнале на диске и переживает перезапуск приложения.
+ * </p>
+ *
+ * <h3>Журнал</h3>
+ * <p>
+ * Файл только дописывается: заголовок {@code CHIS} с версией формата и
+ * поколением, затем записи {@code [длина][UTF-8][CRC32C]}. Контрольная сумма
+ * записи считается вместе с поколением, поэтому {@link #clear()} не усекает
+ * файл, а только увеличивает поколение в заголовке: прежние записи перестают
+ * проходить проверку и отрезаются при следующем открытии, как оборванный
+ * хвост. Новые записи копятся в буфере и
+ * пишутся пачками по {@code batchSize} записей; вызывать ли после пачки
+ * {@code fsync}, определяет {@link Sync}. При открытии журнал проверяется
+ * по контрольным суммам, а оборванный хвост (запись, недописанная при сбое)
+ * отрезается. Файл блокируется, чтобы два процесса не писали в него разом.
+ * </p>
+ * <p>
+ * Записанная часть журнала читается через отображение файла в память, а
+ * последние записи — из буфера, так что прокрутка истории не делает
+ * системных вызовов. Размер журнала ограничен 2 ГБ.
+ * </p>
+ *
+ * <h3>Поиск</h3>
+ * <p>
+ * В памяти хранится компактный индекс — 16 байт на запись: смещение записи,
+ * 64-битная сигнатура её символов и пар соседних символов и позиция в
+ * отсортированном порядке. Поиск по префиксу — двоичный поиск по
+ * отсортированному порядку, который достраивается слиянием при первом
+ * поиске после добавления записей. Поиск подстроки отбрасывает записи, в
+ * сигнатуре которых нет всех битов запроса, и сравнивает байты только у
+ * оставшихся.
+ * </p>
+ * <p>
+ * Методы класса синхронизированы: историю можно читать из фонового потока,
+ * пока поток интерфейса добавляет записи.
+ * </p>
+ */
+public class History implements Closeable {
+
+    /**
+     * Когда данные журнала принудительно сбрасываются на диск.
+     */
+    public enum Sync {
+        /** Пачки пишутся в файл, сброс на диск остаётся за ОС. */
+        NONE,
+        /** После каждой пачки и при {@link #flush()} вызывается {@code fsync}. */
+        BATCH,
+        /** Каждая запись пишется и сбрасывается на диск сразу. */
+        ALWAYS
+    }
+
+    /** Количество последних записей, которые выводит {@link #getFormattedHistory()}. */
+    public static final int VISIBLE_ENTRIES = 3;
+
+    /** Размер пачки записей по умолчанию. */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    /** Сигнатура файла журнала, «CHIS». */
+    private static final int MAGIC = 0x43484953;
+    private static final int VERSION = 2;
+    /** Сигнатура, версия и поколение. */
+    private static final int HEADER_SIZE = 12;
+    private static final int GENERATION_OFFSET = 8;
+
+    /** Длина и контрольная сумма записи. */
+    private static final int RECORD_OVERHEAD = 8;
+
+    /** Сколько записанных байт держать в буфере, прежде чем читать их из отображения. */
+    private static final int TAIL_RETAIN = 1024 * 1024;
+
+    /** Размер блока, которым читается журнал при открытии. */
+    private static final int RECOVERY_BLOCK = 64 * 1024;
+
+    /** Канал журнала; {@code null} у истории в памяти. */
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final Sync sync;
+    private final int batchSize;
+
+    /** Смещения записей в журнале, по порядку добавления. */
+    private int[] offsets = new int[64];
+    private long[] signatures = new long[64];
+    private int count;
+
+    /** Номера записей, упорядоченные по тексту; покрывает первые {@code sorted.length} записей. */
+    private int[] sorted = new int[0];
+
+    /** Конец журнала с учётом буфера. */
+    private int size = HEADER_SIZE;
+    /** Конец записанной в файл части. */
+    private int written = HEADER_SIZE;
+    /** Смещение в журнале первого байта буфера. */
+    private int tailStart = HEADER_SIZE;
+    private byte[] tail = new byte[4096];
+    private int pending;
+
+    /** Отображение файла, покрывает {@code [0, tailStart)}; {@code null}, пока отображать нечего. */
+    private MappedByteBuffer map;
+
+    /** Поколение записей, начинающее контрольную сумму каждой из них. */
+    private final byte[] generation = new byte[4];
+
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * Создаёт пустую историю в памяти.
+     */
+    public History() {
+        this(null, null, Sync.NONE, Integer.MAX_VALUE);
+    }
+
+    private History(FileChannel channel, FileLock lock, Sync sync, int batchSize) {
+        this.channel = channel;
+        this.lock = lock;
+        this.sync = sync;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Открывает журнал истории с пачками по {@value #DEFAULT_BATCH_SIZE}
+     * записей и {@link Sync#BATCH}.
+     *
+     * @see #open(Path, Sync, int)
+     */
+    public static History open(Path file) throws IOException {
+        return open(file, Sync.BATCH, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Открывает журнал истории, создавая файл при необходимости.
+     *
+     * @param file      файл журнала
+     * @param sync      политика сброса на диск
+     * @param batchSize сколько записей копить перед записью в файл;
+     *                  1 — писать каждую запись сразу
+     * @return история с записями журнала
+     * @throws IOException              если файл не является журналом истории,
+     *                                  занят другим процессом или недоступен
+     * @throws IllegalArgumentException если размер пачки не положителен
+     */
+    public static History open(Path file, Sync sync, int batchSize) throws IOException {
+        Objects.requireNonNull(sync, "sync");
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Размер пачки должен быть положительным: %d", batchSize));
+        }
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException(String.format("Файл истории уже открыт: %s", file));
+            }
+            History history = new History(channel, lock, sync, batchSize);
+            history.recover(file);
+            return history;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Проверяет заголовок, индексирует записи журнала и отрезает оборванный хвост.
+     */
+    private void recover(Path file) throws IOException {
+        long length = channel.size();
+        if (length == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putInt(0).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            force();
+            return;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Файл истории больше 2 ГБ: %s", file));
+        }
+        // Журнал читается без отображения: Windows не даёт усечь файл,
+        // пока существует его отображение
+        ByteBuffer block = fill(ByteBuffer.allocate(RECOVERY_BLOCK), 0, 0, length);
+        if (length < HEADER_SIZE || block.getInt(0) != MAGIC) {
+            throw new IOException(String.format("Файл не является журналом истории: %s", file));
+        }
+        if (block.getInt(4) != VERSION) {
+            throw new IOException(String.format("Неподдерживаемая версия журнала истории %d: %s",
+                    block.getInt(4), file));
+        }
+        block.get(GENERATION_OFFSET, generation);
+
+        int blockStart = 0;
+        int position = HEADER_SIZE;
+        while (length - position >= RECORD_OVERHEAD) {
+            if (position + 4 > blockStart + block.limit()) {
+                block = fill(block, position, 4, length);
+                blockStart = position;
+            }
+            int entryLength = block.getInt(position - blockStart);
+            if (entryLength < 0 || entryLength > length - position - RECORD_OVERHEAD) {
+                break;
+            }
+            int end = position + RECORD_OVERHEAD + entryLength;
+            if (end > blockStart + block.limit()) {
+                block = fill(block, position, RECORD_OVERHEAD + entryLength, length);
+                blockStart = position;
+            }
+            ByteBuffer entry = block.slice(position - blockStart + 4, entryLength);
+            crc.reset();
+            crc.update(generation);
+            crc.update(entry);
+            if ((int) crc.getValue() != block.getInt(end - blockStart - 4)) {
+                break;
+            }
+            index(position, signature(entry.rewind()));
+            position = end;
+        }
+        if (position < length) {
+            // Отображений файла ещё нет, поэтому усечение допускает и Windows
+            channel.truncate(position);
+            force();
+        }
+        size = written = tailStart = position;
+        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, position);
+    }
+
+    /**
+     * Читает в {@code block} байты журнала со смещения {@code from}: сколько
+     * поместится, но не меньше {@code needed}; при нехватке места буфер
+     * заменяется большим.
+     *
+     * @return буфер с прочитанными байтами от нуля до {@code limit}
+     */
+    private ByteBuffer fill(ByteBuffer block, long from, int needed, long length) throws IOException {
+        if (block.capacity() < needed) {
+            block = ByteBuffer.allocate(Math.max(needed, 2 * block.capacity()));
+        }
+        block.clear().limit((int) Math.min(block.capacity(), length - from));
+        while (block.hasRemaining()) {
+            if (channel.read(block, from + block.position()) < 0) {
+                throw new IOException("Журнал истории укоротился при чтении");
+            }
+        }
+        return block.flip();
+    }
+
+    /**
+     * Добавляет новую запись в историю.
+     * <p>
+     * Запись сразу доступна для чтения и поиска, а в файл попадает вместе
+     * со своей пачкой.
+     * </p>
+     *
+     * @param entry строка с выражением и результатом
+     * @throws IllegalStateException если журнал достиг 2 ГБ
+     * @throws UncheckedIOException  если не удалось записать пачку
+     */
+    public synchronized void addEntry(String entry) {
+        byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+        long end = (long) size + RECORD_OVERHEAD + bytes.length;
+        if (end > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Журнал истории достиг 2 ГБ");
+        }
+
+        int at = size - tailStart;
+        if (tail.length < end - tailStart) {
+            tail = Arrays.copyOf(tail, (int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max(end - tailStart, 2L * tail.length)));
+        }
+        ByteBuffer record = ByteBuffer.wrap(tail, at, RECORD_OVERHEAD + bytes.length);
+        record.putInt(bytes.length).put(bytes);
+        crc.reset();
+        crc.update(generation);
+        crc.update(bytes);
+        record.putInt((int) crc.getValue());
+
+        index(size, signature(ByteBuffer.wrap(bytes)));
+        size = (int) end;
+
+        if (channel != null && (++pending >= batchSize || sync == Sync.ALWAYS)) {
+            try {
+                write();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void index(int offset, long signature) {
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            signatures = Arrays.copyOf(signatures, count * 2);
+        }
+        offsets[count] = offset;
+        signatures[count] = signature;
+        count++;
+    }
+
+    /**
+     * Пишет накопленные записи в файл и при {@link Sync#BATCH} или
+     * {@link Sync#ALWAYS} сбрасывает их на диск.
+     *
+     * @throws IOException если запись не удалась
+     */
+    public synchronized void flush() throws IOException {
+        if (channel != null) {
+            write();
+        }
+    }
+
+    private void write() throws IOException {
+        if (written < size) {
+            ByteBuffer buffer = ByteBuffer.wrap(tail, written - tailStart, size - written);
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer, written);
+            }
+            pending = 0;
+            force();
+        }
+        if (size - tailStart > TAIL_RETAIN) {
+            // Записанное дальше читается из отображения файла. Отображение
+            // заменяется здесь, а не при чтении: срезы прежнего ещё могут
+            // использоваться читающим методом. Прежнее освободит сборщик мусора
+            tailStart = size;
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, tailStart);
+        }
+    }
+
+    private void force() throws IOException {
+        if (sync != Sync.NONE) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Возвращает количество записей.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Возвращает запись по номеру; записи нумеруются от старой к новой.
+     *
+     * @param index номер записи
+     * @return текст записи
+     * @throws IndexOutOfBoundsException если записи с таким номером нет
+     */
+    public synchronized String get(int index) {
+        Objects.checkIndex(index, count);
+        ByteBuffer entry = entry(index);
+        byte[] bytes = new byte[entry.limit()];
+        entry.get(0, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Возвращает байты записи без копирования.
+     */
+    private ByteBuffer entry(int index) {
+        int offset = offsets[index];
+        int end = index + 1 < count ? offsets[index + 1] : size;
+        int length = end - offset - RECORD_OVERHEAD;
+        if (offset >= tailStart) {
+            return ByteBuffer.wrap(tail, offset - tailStart + 4, length).slice();
+        }
+        if (map == null) {
+            throw new IllegalStateException("Журнал истории закрыт");
+        }
+        return map.slice(offset + 4, length);
+    }
+
+    /**
+     * Возвращает последние {@value #VISIBLE_ENTRIES} записи в виде строки
+     * для отображения.
+     * <p>
+     * История выводится в порядке от старой к новой записи; остальные
+     * записи не читаются, поэтому стоимость не зависит от длины истории.
+     * </p>
+     *
+     * @return строка с историей вычислений
+     */
+    public synchronized String getFormattedHistory() {
+        return getFormattedHistory(Math.max(0, count - VISIBLE_ENTRIES), VISIBLE_ENTRIES);
+    }
+
+    /**
+     * Возвращает окно истории в виде строки, по записи в строке.
+     *
+     * @param first номер первой записи окна
+     * @param limit наибольшее количество записей в окне
+     * @return записи с {@code first} по {@code first + limit - 1}, которые есть в истории
+     */
+    public synchronized String getFormattedHistory(int first, int limit) {
+        return String.join("\n", getEntries(first, limit));
+    }
+
+    /**
+     * Возвращает окно истории списком записей.
+     * <p>
+     * Записи читаются под одной блокировкой, поэтому страница для
+     * прокручиваемого списка загружается одним вызовом.
+     * </p>
+     *
+     * @param first номер первой записи окна
+     * @param limit наибольшее количество записей в окне
+     * @return записи с {@code first} по {@code first + limit - 1}, которые есть в истории
+     */
+    public synchronized List<String> getEntries(int first, int limit) {
+        int from = Math.max(first, 0);
+        int end = (int) Math.min(count, (long) from + Math.max(limit, 0));
+        List<String> entries = new ArrayList<>(Math.max(end - from, 0));
+        for (int i = from; i < end; i++) {
+            entries.add(get(i));
+        }
+        return entries;
+    }
+
+    /**
+     * Ищет записи, начинающиеся с {@code prefix}.
+     *
+     * @param prefix искомое начало записи
+     * @param limit  наибольшее количество результатов
+     * @return номера найденных записей, от новых к старым
+     */
+    public synchronized int[] findByPrefix(String prefix, int limit) {
+        ByteBuffer key = ByteBuffer.wrap(prefix.getBytes(StandardCharsets.UTF_8));
+        sort();
+        int from = 0;
+        int to = count;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (comparePrefix(sorted[mid], key) < 0) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        int low = from;
+        to = count;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (comparePrefix(sorted[mid], key) <= 0) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+
+        // Совпавшие записи идут в порядке текста; нужны самые новые
+        int[] found = Arrays.copyOfRange(sorted, low, from);
+        Arrays.sort(found);
+        int results = Math.min(found.length, Math.max(limit, 0));
+        int[] newest = new int[results];
+        for (int i = 0; i < results; i++) {
+            newest[i] = found[found.length - 1 - i];
+        }
+        return newest;
+    }
+
+    /**
+     * Ищет записи, содержащие {@code text}.
+     *
+     * @param text  искомая подстрока
+     * @param limit наибольшее количество результатов
+     * @return номера найденных записей, от новых к старым
+     */
+    public synchronized int[] findContaining(String text, int limit) {
+        byte[] key = text.getBytes(StandardCharsets.UTF_8);
+        long signature = signature(ByteBuffer.wrap(key));
+        int[] found = new int[Math.min(count, Math.max(limit, 0))];
+        int results = 0;
+        for (int i = count - 1; i >= 0 && results < found.length; i--) {
+            if ((signatures[i] & signature) == signature && contains(entry(i), key)) {
+                found[results++] = i;
+            }
+        }
+        return Arrays.copyOf(found, results);
+    }
+
+    private static boolean contains(ByteBuffer entry, byte[] key) {
+        search:
+        for (int i = 0, last = entry.limit() - key.length; i <= last; i++) {
+            for (int j = 0; j < key.length; j++) {
+                if (entry.get(i + j) != key[j]) {
+                    continue search;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Сигнатура текста: по биту на каждый байт и каждую пару соседних байт.
+     * <p>
+     * Если текст содержит подстроку, его сигнатура содержит все биты
+     * сигнатуры подстроки.
+     * </p>
+     */
+    private static long signature(ByteBuffer bytes) {
+        long signature = 0;
+        int previous = 0;
+        for (int i = 0; i < bytes.limit(); i++) {
+            int b = bytes.get(i) & 0xFF;
+            signature |= 1L << (b * 0x9E3779B1 >>> 26);
+            if (i > 0) {
+                signature |= 1L << ((previous << 8 | b) * 0x9E3779B1 >>> 26);
+            }
+            previous = b;
+        }
+        return signature;
+    }
+
+    /**
+     * Достраивает упорядоченный по тексту индекс записями, добавленными
+     * после прошлого поиска.
+     * <p>
+     * На время сортировки первые 8 байт каждой записи собираются в число,
+     * которое переставляется вместе с номером записи: большинство сравнений
+     * решается по соседним в памяти числам без чтения записей.
+     * </p>
+     */
+    private void sort() {
+        int sortedCount = sorted.length;
+        if (sortedCount == count) {
+            return;
+        }
+        int added = count - sortedCount;
+        int[] ids = new int[added];
+        long[] keys = new long[added];
+        for (int i = 0; i < added; i++) {
+            ids[i] = sortedCount + i;
+            keys[i] = key(sortedCount + i);
+        }
+        mergeSort(ids, keys, new int[added], new long[added], 0, added);
+        if (sortedCount == 0) {
+            sorted = ids;
+            return;
+        }
+
+        // Новые записи вставляются в готовый порядок двоичным поиском
+        int[] merged = new int[count];
+        int from = 0;
+        int at = 0;
+        for (int id : ids) {
+            ByteBuffer entry = entry(id);
+            int low = from;
+            int high = sortedCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareBytes(entry(sorted[mid]), entry, 0) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            System.arraycopy(sorted, from, merged, at, low - from);
+            at += low - from;
+            merged[at++] = id;
+            from = low;
+        }
+        System.arraycopy(sorted, from, merged, at, sortedCount - from);
+        sorted = merged;
+    }
+
+    /**
+     * Первые 8 байт записи как беззнаковое число; короткие записи дополняются нулями.
+     */
+    private long key(int index) {
+        ByteBuffer entry = entry(index);
+        long key = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            key = key << 8 | (i < entry.limit() ? entry.get(i) & 0xFF : 0);
+        }
+        return key;
+    }
+
+    private void mergeSort(int[] ids, long[] keys, int[] idBuffer, long[] keyBuffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(ids, keys, idBuffer, keyBuffer, from, mid);
+        mergeSort(ids, keys, idBuffer, keyBuffer, mid, to);
+        if (compare(ids, keys, mid - 1, mid) <= 0) {
+            return;
+        }
+        System.arraycopy(ids, from, idBuffer, from, to - from);
+        System.arraycopy(keys, from, keyBuffer, from, to - from);
+        merge(idBuffer, keyBuffer, from, mid, to, ids, keys, from);
+    }
+
+    /**
+     * Сливает упорядоченные отрезки {@code [from, mid)} и {@code [mid, to)}
+     * в {@code outIds} и {@code outKeys} с позиции {@code at}.
+     */
+    private void merge(int[] ids, long[] keys, int from, int mid, int to, int[] outIds, long[] outKeys, int at) {
+        int a = from;
+        int b = mid;
+        while (a < mid && b < to) {
+            int next = compare(ids, keys, a, b) <= 0 ? a++ : b++;
+            outIds[at] = ids[next];
+            outKeys[at++] = keys[next];
+        }
+        int rest = a < mid ? a : b;
+        int length = a < mid ? mid - a : to - b;
+        System.arraycopy(ids, rest, outIds, at, length);
+        System.arraycopy(keys, rest, outKeys, at, length);
+    }
+
+    /**
+     * Сравнивает записи на позициях {@code a} и {@code b} побайтно; для
+     * UTF-8 это порядок символов.
+     */
+    private int compare(int[] ids, long[] keys, int a, int b) {
+        int result = Long.compareUnsigned(keys[a], keys[b]);
+        // Равные ключи: первые 8 байт совпадают или записи короче и равны
+        return result != 0 ? result : compareBytes(entry(ids[a]), entry(ids[b]), Long.BYTES);
+    }
+
+    /**
+     * Сравнивает начало записи длиной в ключ с ключом.
+     */
+    private int comparePrefix(int index, ByteBuffer key) {
+        ByteBuffer entry = entry(index);
+        if (entry.limit() > key.limit()) {
+            entry.limit(key.limit());
+        }
+        return compareBytes(entry, key, 0);
+    }
+
+    /**
+     * Сравнивает байты без знака, начиная с позиции {@code from}; байты до
+     * неё считаются равными.
+     */
+    private static int compareBytes(ByteBuffer a, ByteBuffer b, int from) {
+        int length = Math.min(a.limit(), b.limit());
+        for (int i = Math.min(from, length); i < length; i++) {
+            int result = Byte.compareUnsigned(a.get(i), b.get(i));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return a.limit() - b.limit();
+    }
+
+    /**
+     * Очищает всю историю вычислений, в том числе журнал на диске.
+     * <p>
+     * Файл не усекается: пока существует его отображение, Windows этого не
+     * позволяет. Вместо этого в заголовке увеличивается поколение, а новые
+     * записи пишутся поверх прежних; оставшиеся за ними записи прежнего
+     * поколения не проходят проверку и отрезаются при следующем открытии.
+     * </p>
+     *
+     * @throws UncheckedIOException если не удалось записать заголовок
+     */
+    public synchronized void clear() {
+        byte[] next = ByteBuffer.allocate(4).putInt(ByteBuffer.wrap(generation).getInt() + 1).array();
+        if (channel != null) {
+            try {
+                ByteBuffer header = ByteBuffer.wrap(next);
+                while (header.hasRemaining()) {
+                    channel.write(header, GENERATION_OFFSET + header.position());
+                }
+                force();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        System.arraycopy(next, 0, generation, 0, next.length);
+        map = null;
+        count = 0;
+        sorted = new int[0];
+        size = written = tailStart = HEADER_SIZE;
+        pending = 0;
+    }
+
+    /**
+     * Проверяет, пуста ли история.
+     *
+     * @return true, если история пуста
+     */
+    public synchronized boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Дописывает накопленные записи, сбрасывает журнал на диск согласно
+     * {@link Sync} и закрывает файл. Историю в памяти закрывать не нужно.
+     * После закрытия записи, прочитанные из файла, недоступны; само
+     * отображение файла освобождает сборщик мусора.
+     *
+     * @throws IOException если запись не удалась
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            try {
+                write();
+            } finally {
+                map = null;
+                lock.release();
+                channel.close();
+            }
+        }
+    }
+}
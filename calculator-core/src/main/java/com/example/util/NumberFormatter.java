@@ -0,0 +1,598 @@
+package com.example.util;
+
+import com.example.metrics.Metrics;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Класс для форматирования чисел для отображения.
+ * <p>
+ * Предоставляет методы для красивого отображения результатов вычислений,
+ * убирая незначащие нули и обрабатывая погрешности вычислений с плавающей
+ * точкой. Использует точку в качестве десятичного разделителя.
+ * </p>
+ * <p>
+ * Кроме {@link #format(double)}, возвращающего строку, есть варианты,
+ * дописывающие результат в {@link StringBuilder}, массив символов или
+ * {@link ByteBuffer} (ASCII). Они не выделяют память и не используют
+ * регулярные выражения, поэтому подходят для вывода большого числа
+ * результатов.
+ * </p>
+ * <p>
+ * Все варианты дают один и тот же текст, совпадающий с прежним форматом
+ * {@code String.format(Locale.US, "%.8f", value)} без концевых нулей:
+ * дробная часть округляется до 8 знаков половиной вверх, но округляется не
+ * точное двоичное значение, а его кратчайшая десятичная запись. Поэтому,
+ * например, {@code 0.123456785} даёт {@code "0.12345679"}, хотя ближайший к
+ * нему {@code double} чуть меньше. По той же причине числа больше
+ * 2<sup>63</sup> записываются не точными цифрами, а кратчайшей десятичной
+ * записью, дополненной нулями: 2<sup>64</sup> даёт
+ * {@code "18446744073709552000"}.
+ * </p>
+ * <p>
+ * Время и ошибки всех вариантов учитываются в {@link Metrics#FORMAT}.
+ * </p>
+ */
+public class NumberFormatter {
+
+    /** Малый порог для сравнения чисел с плавающей точкой. */
+    private static final double EPSILON = 1e-10;
+
+    /**
+     * Наибольшая длина результата в символах: минус и 309 цифр
+     * {@code -Double.MAX_VALUE}. Массива такой длины достаточно для
+     * {@link #format(double, char[], int)} при любом значении.
+     */
+    public static final int MAX_LENGTH = 310;
+
+    /**
+     * Наибольшая длина результата для чисел, по модулю не больших
+     * 2<sup>63</sup>: минус, 16 цифр целой части, точка и 8 знаков.
+     */
+    private static final int NUMBER_LENGTH = 26;
+
+    /** Число знаков дробной части. */
+    private static final int FRACTION_DIGITS = 8;
+
+    /** Степени десяти от 10<sup>0</sup> до 10<sup>18</sup>. */
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /** Множитель дробной части: 10<sup>8</sup>. */
+    private static final long FRACTION_SCALE = POWERS_OF_TEN[FRACTION_DIGITS];
+
+    /** Граница, выше которой числа не помещаются в {@code long}. */
+    private static final double LONG_LIMIT = 0x1p63;
+
+    /**
+     * Наименьший и наибольший десятичные порядки кратчайшей записи чисел
+     * больше 2<sup>63</sup>: ⌊log<sub>10</sub>(3/4 · 2<sup>11</sup>)⌋ и
+     * ⌊log<sub>10</sub>2<sup>971</sup>⌋.
+     */
+    private static final int MIN_LARGE_EXPONENT = 3;
+    private static final int MAX_LARGE_EXPONENT = 292;
+
+    /**
+     * Приближения 10<sup>-k</sup> для {@link #largeSignificand}: по два
+     * {@code long} на порядок — старшие и младшие 63 бита числа
+     * g = ⌊10<sup>-k</sup> · 2<sup>125 - ⌊log<sub>2</sub>10<sup>-k</sup>⌋</sup>⌋ + 1,
+     * лежащего между 2<sup>125</sup> и 2<sup>126</sup>.
+     */
+    private static final long[] LARGE_SCALES = new long[2 * (MAX_LARGE_EXPONENT - MIN_LARGE_EXPONENT + 1)];
+
+    static {
+        for (int k = MIN_LARGE_EXPONENT; k <= MAX_LARGE_EXPONENT; k++) {
+            BigInteger g = BigInteger.ONE.shiftLeft(125 - floorLog2Pow10(-k))
+                    .divide(BigInteger.TEN.pow(k))
+                    .add(BigInteger.ONE);
+            int index = 2 * (k - MIN_LARGE_EXPONENT);
+            LARGE_SCALES[index] = g.shiftRight(63).longValue();
+            LARGE_SCALES[index + 1] = g.longValue() & Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Запись числа в приёмник одного типа.
+     *
+     * @param <S> тип приёмника
+     */
+    @FunctionalInterface
+    private interface Writer<S> {
+        /**
+         * @return число символов, записанных начиная с позиции {@code offset}
+         */
+        int write(double value, S sink, int offset);
+    }
+
+    /**
+     * Форматирует результат вычисления для удобного отображения.
+     * <p>
+     * Убирает незначащие нули и десятичную точку для целых чисел,
+     * а также корректирует значения, близкие к нулю из-за погрешностей
+     * вычислений с плавающей точкой.
+     * </p>
+     *
+     * <h3>Примеры форматирования:</h3>
+     *
+     * <pre>
+     * 5.0        →  "5"         (целое число)
+     * 3.14159265 →  "3.14159265" (до 8 знаков)
+     * 2.50000000 →  "2.5"       (убраны нули)
+     * 0.00000001 →  "0"         (близко к нулю)
+     * </pre>
+     *
+     * @param value число для форматирования
+     * @return отформатированная строка
+     */
+    public static String format(double value) {
+        char[] buffer = new char[Math.abs(value) > LONG_LIMIT ? MAX_LENGTH : NUMBER_LENGTH];
+        return new String(buffer, 0, formatTo(value, buffer, 0, NumberFormatter::write));
+    }
+
+    /**
+     * Дописывает отформатированное число в конец {@code out}.
+     *
+     * @param value число для форматирования
+     * @param out   строка-приёмник
+     * @return {@code out}
+     * @see #format(double)
+     */
+    public static StringBuilder format(double value, StringBuilder out) {
+        formatTo(value, out, out.length(), (v, sink, start) -> append(v, sink).length() - start);
+        return out;
+    }
+
+    private static StringBuilder append(double value, StringBuilder out) {
+        value = snapToZero(value);
+        String special = special(value);
+        if (special != null) {
+            return out.append(special);
+        }
+        if (Math.abs(value) > LONG_LIMIT) {
+            long bits = Double.doubleToRawLongBits(value);
+            int exponent = largeExponent(bits);
+            if (value < 0) {
+                out.append('-');
+            }
+            return out.append(largeSignificand(bits, exponent)).repeat('0', exponent);
+        }
+        if (value == (long) value) {
+            return out.append((long) value);
+        }
+
+        double abs = Math.abs(value);
+        long fraction = fraction(abs);
+        long integer = (long) abs;
+        if (fraction == FRACTION_SCALE) {
+            integer++;
+            fraction = 0;
+        }
+        if (value < 0) {
+            out.append('-');
+        }
+        out.append(integer);
+        if (fraction != 0) {
+            out.append('.');
+            for (int i = FRACTION_DIGITS - 1; fraction != 0; i--) {
+                out.append((char) ('0' + fraction / POWERS_OF_TEN[i]));
+                fraction %= POWERS_OF_TEN[i];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Записывает отформатированное число в массив символов.
+     *
+     * @param value  число для форматирования
+     * @param buffer массив-приёмник; с позиции {@code offset} должно быть
+     *               свободно до {@link #MAX_LENGTH} символов
+     * @param offset позиция первого символа
+     * @return число записанных символов
+     * @throws ArrayIndexOutOfBoundsException если результат не поместился
+     * @see #format(double)
+     */
+    public static int format(double value, char[] buffer, int offset) {
+        return formatTo(value, buffer, offset, NumberFormatter::write);
+    }
+
+    private static int write(double value, char[] buffer, int offset) {
+        value = snapToZero(value);
+        String special = special(value);
+        if (special != null) {
+            special.getChars(0, special.length(), buffer, offset);
+            return special.length();
+        }
+        if (Math.abs(value) > LONG_LIMIT) {
+            long bits = Double.doubleToRawLongBits(value);
+            int exponent = largeExponent(bits);
+            int position = offset;
+            if (value < 0) {
+                buffer[position++] = '-';
+            }
+            position = writeLong(largeSignificand(bits, exponent), buffer, position);
+            Arrays.fill(buffer, position, position + exponent, '0');
+            return position + exponent - offset;
+        }
+        if (value == (long) value) {
+            return writeLong((long) value, buffer, offset) - offset;
+        }
+
+        double abs = Math.abs(value);
+        long fraction = fraction(abs);
+        long integer = (long) abs;
+        if (fraction == FRACTION_SCALE) {
+            integer++;
+            fraction = 0;
+        }
+        int position = offset;
+        if (value < 0) {
+            buffer[position++] = '-';
+        }
+        position = writeLong(integer, buffer, position);
+        if (fraction != 0) {
+            buffer[position++] = '.';
+            for (int i = FRACTION_DIGITS - 1; fraction != 0; i--) {
+                buffer[position++] = (char) ('0' + fraction / POWERS_OF_TEN[i]);
+                fraction %= POWERS_OF_TEN[i];
+            }
+        }
+        return position - offset;
+    }
+
+    /**
+     * Записывает отформатированное число в буфер байтов в кодировке ASCII,
+     * начиная с текущей позиции буфера.
+     *
+     * @param value число для форматирования
+     * @param out   буфер-приёмник
+     * @return {@code out}
+     * @throws java.nio.BufferOverflowException если результат не поместился
+     * @see #format(double)
+     */
+    public static ByteBuffer format(double value, ByteBuffer out) {
+        formatTo(value, out, out.position(), (v, sink, start) -> put(v, sink).position() - start);
+        return out;
+    }
+
+    /**
+     * Общая точка входа всех вариантов {@code format}: время и ошибки
+     * учитываются в {@link Metrics#FORMAT} только здесь. Запись выполняет
+     * {@code writer} без захвата переменных, поэтому после встраивания
+     * вызов становится прямым.
+     */
+    private static <S> int formatTo(double value, S sink, int offset, Writer<S> writer) {
+        if (!Metrics.ENABLED) {
+            return writer.write(value, sink, offset);
+        }
+        long start = System.nanoTime();
+        try {
+            int length = writer.write(value, sink, offset);
+            Metrics.FORMAT.record(start);
+            return length;
+        } catch (RuntimeException e) {
+            Metrics.FORMAT.failed(e);
+            throw e;
+        }
+    }
+
+    private static ByteBuffer put(double value, ByteBuffer out) {
+        value = snapToZero(value);
+        String special = special(value);
+        if (special != null) {
+            for (int i = 0; i < special.length(); i++) {
+                out.put((byte) special.charAt(i));
+            }
+            return out;
+        }
+        if (Math.abs(value) > LONG_LIMIT) {
+            long bits = Double.doubleToRawLongBits(value);
+            int exponent = largeExponent(bits);
+            if (value < 0) {
+                out.put((byte) '-');
+            }
+            putLong(largeSignificand(bits, exponent), out);
+            for (int i = 0; i < exponent; i++) {
+                out.put((byte) '0');
+            }
+            return out;
+        }
+        if (value == (long) value) {
+            return putLong((long) value, out);
+        }
+
+        double abs = Math.abs(value);
+        long fraction = fraction(abs);
+        long integer = (long) abs;
+        if (fraction == FRACTION_SCALE) {
+            integer++;
+            fraction = 0;
+        }
+        if (value < 0) {
+            out.put((byte) '-');
+        }
+        putLong(integer, out);
+        if (fraction != 0) {
+            out.put((byte) '.');
+            for (int i = FRACTION_DIGITS - 1; fraction != 0; i--) {
+                out.put((byte) ('0' + fraction / POWERS_OF_TEN[i]));
+                fraction %= POWERS_OF_TEN[i];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Очень малые значения (погрешность) приводит к нулю.
+     */
+    private static double snapToZero(double value) {
+        return Math.abs(value) < EPSILON ? 0 : value;
+    }
+
+    /**
+     * Возвращает готовый текст для значений, которые не форматируются
+     * цифрами, или {@code null}.
+     */
+    private static String special(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "Infinity" : "-Infinity";
+        }
+        return null;
+    }
+
+    /**
+     * Возвращает десятичный порядок k кратчайшей записи числа больше
+     * 2<sup>63</sup>: запись имеет вид {@code s · 10^k}, где s — результат
+     * {@link #largeSignificand}.
+     *
+     * @param bits биты конечного числа, по модулю большего 2<sup>63</sup>
+     */
+    private static int largeExponent(long bits) {
+        long mantissa = bits & ((1L << 52) - 1);
+        // |value| = (2^52 + mantissa) · 2^q, 11 ≤ q ≤ 971
+        int q = (int) (bits >>> 52 & 0x7ff) - 1075;
+        // У степени двойки соседнее меньшее значение вдвое ближе, и интервал
+        // округления начинается с 3/4 · 2^q, а не с 2^q
+        return mantissa != 0
+                ? (int) (q * 661_971_961_083L >> 41)
+                : (int) (q * 661_971_961_083L - 274_743_187_321L >> 41);
+    }
+
+    /**
+     * Вычисляет цифры кратчайшей записи числа больше 2<sup>63</sup>.
+     * <p>
+     * Все такие числа целые, но не помещаются в {@code long}, и
+     * {@code %.8f} печатает их не точными цифрами, а кратчайшей десятичной
+     * записью из интервала значений, которые округляются к этому
+     * {@code double}, дополненной нулями; из двух одинаково коротких
+     * берётся ближайшая, при равенстве — с чётной последней цифрой. Здесь
+     * повторяется тот же алгоритм Schubfach (R. Giulietti, «The Schubfach
+     * way to render doubles»), которым пользуется {@link java.util.Formatter}:
+     * границы интервала умножаются на 126-битное приближение
+     * 10<sup>-k</sup> из {@link #LARGE_SCALES}, так что вся арифметика
+     * укладывается в {@code long} и не выделяет память.
+     * </p>
+     *
+     * @param bits     биты конечного числа, по модулю большего 2<sup>63</sup>
+     * @param exponent результат {@link #largeExponent} для этих битов
+     * @return s — от 1 до 17 цифр, возможно с нулями на конце
+     */
+    private static long largeSignificand(long bits, int exponent) {
+        long mantissa = bits & ((1L << 52) - 1);
+        long c = mantissa | (1L << 52);
+        int q = (int) (bits >>> 52 & 0x7ff) - 1075;
+        int out = (int) c & 1;
+        // Значение и границы интервала в единицах 2^(q-2)
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl = mantissa != 0 ? cb - 2 : cb - 1;
+        int h = q + floorLog2Pow10(-exponent) + 2;
+
+        int index = 2 * (exponent - MIN_LARGE_EXPONENT);
+        long g1 = LARGE_SCALES[index];
+        long g0 = LARGE_SCALES[index + 1];
+        long vb = scale(g1, g0, cb << h);
+        long vbl = scale(g1, g0, cbl << h);
+        long vbr = scale(g1, g0, cbr << h);
+
+        // Сначала запись на цифру короче: s' = ⌊s / 10⌋ · 10 и t' = s' + 10
+        long s = vb >> 2;
+        long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+        long tp10 = sp10 + 10;
+        boolean upin = vbl + out <= sp10 << 2;
+        boolean wpin = (tp10 << 2) + out <= vbr;
+        if (upin != wpin) {
+            return upin ? sp10 : tp10;
+        }
+
+        // Затем соседние s и t = s + 1; если подходят обе — ближайшая
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return uin ? s : t;
+        }
+        long cmp = vb - (s + t << 1);
+        return cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t;
+    }
+
+    /**
+     * Умножает {@code cp} на g = g1 · 2<sup>63</sup> + g0 и делит на
+     * 2<sup>127</sup>; младший бит результата отмечает ненулевой остаток.
+     */
+    private static long scale(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & Long.MAX_VALUE) + Long.MAX_VALUE >>> 63;
+    }
+
+    /**
+     * Возвращает ⌊log<sub>2</sub>10<sup>e</sup>⌋.
+     */
+    private static int floorLog2Pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /**
+     * Вычисляет дробную часть, округлённую до 8 знаков, как целое число.
+     * <p>
+     * Повторяет {@code %.8f}: сначала ищется кратчайшая десятичная запись
+     * числа, то есть десятичная дробь с наименьшим числом знаков (до 9) из
+     * интервала значений, которые округляются к этому {@code double}; из
+     * двух одинаково близких берётся запись с чётной последней цифрой. Запись
+     * до 8 знаков возвращается как есть, запись из 9 знаков округляется
+     * половиной вверх. Если в интервале нет записей до 9 знаков, результат
+     * совпадает с округлением точного значения. Вся арифметика целочисленная
+     * и точная: {@code abs = m · 2^-k}, а сравнения с границами интервала
+     * сводятся к остатку от деления {@code m · 10^j} на {@code 2^k}.
+     * </p>
+     *
+     * @param abs нецелое положительное число, не меньшее {@link #EPSILON}
+     * @return дробная часть, умноженная на 10<sup>8</sup>, от 0 до
+     *         10<sup>8</sup> включительно (10<sup>8</sup> означает перенос
+     *         в целую часть)
+     */
+    private static long fraction(double abs) {
+        long bits = Double.doubleToRawLongBits(abs);
+        long mantissa = (bits & ((1L << 52) - 1)) | (1L << 52);
+        // abs = mantissa · 2^-k; abs нецелое и не меньше 1e-10, поэтому 1 ≤ k ≤ 86
+        int k = 1075 - (int) (bits >>> 52);
+        long fractionBits = k >= 53 ? mantissa : mantissa & ((1L << k) - 1);
+        // Соседнее меньшее значение степени двойки вдвое ближе
+        int lowerGapShift = mantissa == 1L << 52 ? 2 : 1;
+        // Границы интервала округляются к чётной мантиссе
+        boolean inclusive = (mantissa & 1) == 0;
+
+        for (int digits = 0; digits <= FRACTION_DIGITS + 1; digits++) {
+            long scale = POWERS_OF_TEN[digits];
+            // fractionBits · scale = high·2^64 + low, делим на 2^k
+            long high = Math.multiplyHigh(fractionBits, scale);
+            long low = fractionBits * scale;
+            long quotient;
+            long remainderHigh;
+            long remainderLow;
+            if (k < 64) {
+                quotient = (high << (64 - k)) | (low >>> k);
+                remainderHigh = 0;
+                remainderLow = low & ((1L << k) - 1);
+            } else if (k == 64) {
+                quotient = high;
+                remainderHigh = 0;
+                remainderLow = low;
+            } else {
+                quotient = high >>> (k - 64);
+                remainderHigh = high & ((1L << (k - 64)) - 1);
+                remainderLow = low;
+            }
+
+            long candidate;
+            if (remainderHigh == 0 && remainderLow == 0) {
+                candidate = quotient;
+            } else {
+                // Расстояния до соседних записей в единицах 2^-k · 10^-digits
+                // сравниваются с половиной шага double: scale / 2
+                boolean lowerFits = false;
+                if (remainderHigh == 0 && Long.compareUnsigned(remainderLow, scale) <= 0) {
+                    long distance = remainderLow << lowerGapShift;
+                    lowerFits = inclusive ? distance <= scale : distance < scale;
+                }
+                long upperDistance = -1;
+                if (k < 64) {
+                    upperDistance = (1L << k) - remainderLow;
+                } else if (remainderHigh == (1L << (k - 64)) - 1 && remainderLow != 0) {
+                    upperDistance = -remainderLow;
+                }
+                boolean upperFits = false;
+                if (upperDistance != -1 && Long.compareUnsigned(upperDistance, scale) <= 0) {
+                    upperFits = inclusive ? 2 * upperDistance <= scale : 2 * upperDistance < scale;
+                }
+
+                if (lowerFits && upperFits) {
+                    int order = Long.compareUnsigned(remainderLow, upperDistance);
+                    candidate = order < 0 || order == 0 && (quotient & 1) == 0 ? quotient : quotient + 1;
+                } else if (lowerFits) {
+                    candidate = quotient;
+                } else if (upperFits) {
+                    candidate = quotient + 1;
+                } else {
+                    continue;
+                }
+            }
+            return digits <= FRACTION_DIGITS
+                    ? candidate * POWERS_OF_TEN[FRACTION_DIGITS - digits]
+                    : (candidate + 5) / 10;
+        }
+
+        // Кратчайшая запись длиннее 9 знаков: округляем точное значение
+        long high = Math.multiplyHigh(fractionBits, FRACTION_SCALE);
+        long low = fractionBits * FRACTION_SCALE;
+        if (k < 64) {
+            long quotient = (high << (64 - k)) | (low >>> k);
+            return quotient + ((low >>> (k - 1)) & 1);
+        }
+        if (k == 64) {
+            return high + (low >>> 63);
+        }
+        return (high >>> (k - 64)) + ((high >>> (k - 65)) & 1);
+    }
+
+    /**
+     * Записывает цифры {@code long} в массив.
+     *
+     * @return позиция после последней цифры
+     */
+    private static int writeLong(long value, char[] buffer, int position) {
+        // Работаем с отрицательным значением, чтобы не переполнить Long.MIN_VALUE
+        if (value < 0) {
+            buffer[position++] = '-';
+        } else {
+            value = -value;
+        }
+        int end = position + digitCount(value);
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' - value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Записывает цифры {@code long} в буфер байтов.
+     */
+    private static ByteBuffer putLong(long value, ByteBuffer out) {
+        if (value < 0) {
+            out.put((byte) '-');
+        } else {
+            value = -value;
+        }
+        for (int i = digitCount(value) - 1; i >= 0; i--) {
+            out.put((byte) ('0' - value / POWERS_OF_TEN[i] % 10));
+        }
+        return out;
+    }
+
+    /**
+     * Возвращает число цифр неположительного значения.
+     */
+    private static int digitCount(long negative) {
+        int count = 1;
+        while (count < POWERS_OF_TEN.length && negative <= -POWERS_OF_TEN[count]) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.util;
+
+import com.example.expression.ExpressionDefinitions;
+import com.example.expression.ExpressionTokenizer;
+import com.example.expression.Token;
+import com.example.expression.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Управляет списком токенов математического выражения.
+ * <p>
+ * Предоставляет методы для добавления, удаления и проверки токенов,
+ * а также для формирования строк выражения для отображения и вычисления.
+ * </p>
+ */
+public class TokenManager {
+
+    /** Паттерн для распознавания операторов. */
+    private static final Pattern OPERATOR_PATTERN = Pattern.compile("[+\\-*/^]");
+
+    /** Токенизатор для фрагментов ввода, не являющихся одной лексемой. */
+    private static final ExpressionTokenizer TOKENIZER = new ExpressionTokenizer(
+            ExpressionDefinitions.FUNCTION_NAMES,
+            ExpressionDefinitions.CONSTANT_NAMES);
+
+    /** Список токенов выражения. */
+    private final List<String> tokens = new ArrayList<>();
+
+    /**
+     * Добавляет токен в конец списка.
+     * 
+     * @param token добавляемый токен
+     */
+    public void add(String token) {
+        tokens.add(token);
+    }
+
+    /**
+     * Удаляет последний токен из списка.
+     */
+    public void removeLast() {
+        if (!tokens.isEmpty()) {
+            tokens.remove(tokens.size() - 1);
+        }
+    }
+
+    /**
+     * Заменяет последний оператор новым или добавляет его.
+     * <p>
+     * Если последний токен — оператор, заменяет его.
+     * Иначе добавляет новый оператор в конец.
+     * </p>
+     * 
+     * @param newOperator новый оператор
+     */
+    public void replaceOrAddOperator(String newOperator) {
+        if (isOperator(getLast())) {
+            tokens.set(tokens.size() - 1, newOperator);
+        } else {
+            tokens.add(newOperator);
+        }
+    }
+
+    /**
+     * Возвращает последний токен без удаления.
+     * 
+     * @return последний токен или пустая строка
+     */
+    public String getLast() {
+        return tokens.isEmpty() ? "" : tokens.get(tokens.size() - 1);
+    }
+
+    /**
+     * Удаляет и возвращает последний токен.
+     *
+     * @return удалённый токен или пустая строка
+     */
+    public String getLastRemoved() {
+        return tokens.isEmpty() ? "" : tokens.remove(tokens.size() - 1);
+    }
+
+    /**
+     * Проверяет, пуст ли список токенов.
+     * 
+     * @return true, если токенов нет
+     */
+    public boolean isEmpty() {
+        return tokens.isEmpty();
+    }
+
+    /**
+     * Очищает все токены.
+     */
+    public void clear() {
+        tokens.clear();
+    }
+
+    /**
+     * Заменяет токены лексемами готового выражения.
+     * <p>
+     * Используется, чтобы вернуть к редактированию выражение из истории:
+     * строка {@link #toExpression()} разбирается токенизатором, и каждая
+     * лексема становится отдельным элементом ввода.
+     * </p>
+     *
+     * @param expression выражение, ранее полученное из {@link #toExpression()}
+     * @throws IllegalArgumentException если выражение содержит недопустимые символы
+     */
+    public void load(String expression) {
+        List<Token> parsed = TOKENIZER.tokenize(expression);
+        tokens.clear();
+        for (Token token : parsed) {
+            tokens.add(expression.substring(token.getStart(), token.getEnd()));
+        }
+    }
+
+    // /**
+    // * Возвращает копию списка токенов.
+    // *
+    // * @return список токенов
+    // */
+    // public List<String> getTokens() {
+    // return new ArrayList<>(tokens);
+    // }
+
+    /**
+     * Формирует выражение для вычисления (без пробелов).
+     *
+     * @return строка выражения
+     */
+    public String toExpression() {
+        return String.join("", tokens);
+    }
+
+    /**
+     * Формирует токены выражения для {@link com.example.expression.ExpressionParser}.
+     * <p>
+     * Элементы ввода уже являются лексемами, поэтому строка выражения не
+     * собирается и не разбирается заново: тип определяется по самому элементу,
+     * числа сразу разбираются в {@code double}, имена функций и констант
+     * сверяются с {@link ExpressionDefinitions}. Позиции токенов совпадают с
+     * позициями в {@link #toExpression()}. Элементы, не являющиеся одной
+     * лексемой (например, незаконченное число {@code "2."}), разбираются
+     * токенизатором, который и сообщает об ошибке.
+     * </p>
+     *
+     * @return список токенов
+     * @throws IllegalArgumentException если элемент ввода содержит
+     *                                  недопустимые символы
+     */
+    public List<Token> toTokens() {
+        List<Token> result = new ArrayList<>(tokens.size());
+        int pos = 0;
+        int i = 0;
+
+        while (i < tokens.size()) {
+            String text = tokens.get(i++);
+            // Соседние элементы без разделителя сливаются, как в строке
+            // выражения: число, введённое после результата, продолжает его
+            while (i < tokens.size() && isGlued(text, tokens.get(i))) {
+                text += tokens.get(i++);
+            }
+
+            int end = pos + text.length();
+            Token token = classify(text, pos, end);
+            if (token != null) {
+                result.add(token);
+            } else {
+                for (Token part : TOKENIZER.tokenize(text)) {
+                    result.add(part.shift(pos));
+                }
+            }
+            pos = end;
+        }
+
+        return result;
+    }
+
+    /**
+     * Проверяет, продолжает ли {@code next} лексему, которой заканчивается {@code text}.
+     */
+    private static boolean isGlued(String text, String next) {
+        return !text.isEmpty() && !next.isEmpty()
+                && isWordChar(text.charAt(text.length() - 1)) && isWordChar(next.charAt(0));
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '.';
+    }
+
+    /**
+     * Определяет тип элемента ввода, состоящего из одной лексемы.
+     *
+     * @return токен или {@code null}, если элемент не является одной лексемой
+     */
+    private static Token classify(String text, int start, int end) {
+        switch (text) {
+            case "(":
+                return new Token(TokenType.LEFT_PAREN, text, start, end);
+            case ")":
+                return new Token(TokenType.RIGHT_PAREN, text, start, end);
+            case ",":
+                return new Token(TokenType.DELIMITER, text, start, end);
+            case "+":
+            case "-":
+            case "*":
+            case "/":
+            case "^":
+            case "×":
+            case "÷":
+                return new Token(TokenType.OPERATOR, text, start, end);
+            default:
+                break;
+        }
+
+        if (isNumberText(text)) {
+            return Token.number(text, Double.parseDouble(text), start, end);
+        }
+
+        String name = text.toLowerCase();
+        if (ExpressionDefinitions.FUNCTIONS.containsKey(name)) {
+            return new Token(TokenType.FUNCTION, text, start, end);
+        }
+        if (ExpressionDefinitions.CONSTANTS.containsKey(name)) {
+            return new Token(TokenType.CONSTANT, text, start, end);
+        }
+        if (isIdentifier(text)) {
+            return new Token(TokenType.VARIABLE, text, start, end);
+        }
+        return null;
+    }
+
+    /**
+     * Проверяет, что текст — число в записи токенизатора: цифры и,
+     * возможно, точка с цифрами после неё.
+     */
+    private static boolean isNumberText(String text) {
+        int length = text.length();
+        int i = skipDigits(text, 0);
+        if (i == 0) {
+            return false;
+        }
+        if (i < length && text.charAt(i) == '.') {
+            int fraction = skipDigits(text, i + 1);
+            if (fraction == i + 1) {
+                return false;
+            }
+            i = fraction;
+        }
+        return i == length;
+    }
+
+    private static int skipDigits(String text, int i) {
+        while (i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isIdentifier(String text) {
+        if (text.isEmpty() || Character.isDigit(text.charAt(0))) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9') && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Формирует выражение для отображения (с пробелами).
+     *
+     * @return строка для показа пользователю
+     */
+    public String toDisplayString() {
+        return String.join("", tokens);
+    }
+
+    /**
+     * Проверяет, является ли токен оператором.
+     * 
+     * @param token проверяемый токен
+     * @return true, если токен — оператор (+, -, *, /, ^)
+     */
+    public boolean isOperator(String token) {
+        return OPERATOR_PATTERN.matcher(token).matches();
+    }
+
+    /**
+     * Удаляет оператор в конце выражения перед вычислением.
+     */
+    public void trailingOperator() {
+        if (isOperator(getLast())) {
+            removeLast();
+        }
+    }
+
+    /**
+     * Проверяет, является ли токен числом.
+     *
+     * @param token проверяемый токен
+     * @return true, если токен — число
+     */
+    public boolean isNumber(String token) {
+        return isNumberText(token);
+    }
+
+    // /**
+    // * Проверяет, может ли следующий минус быть унарным.
+    // * <p>
+    // * Унарный минус возможен в начале выражения, после открывающей
+    // * скобки или после другого оператора.
+    // * </p>
+    // *
+    // * @return true, если унарный минус допустим
+    // */
+    // public boolean canBeUnaryMinus() {
+    // return "(".equals(getLast()) ||
+    // isOperator(getLast());
+    // }
+}
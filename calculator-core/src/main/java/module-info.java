@@ -0,0 +1,19 @@
+/**
+ * Движок математических выражений калькулятора: токенизация, разбор,
+ * компиляция и вычисление, а также форматирование, история и метрики.
+ * <p>
+ * Зависит только от JDK и может использоваться без JavaFX.
+ * </p>
+ */
+module com.example.core {
+    // Необязательно: векторное пакетное вычисление при --add-modules jdk.incubator.vector
+    requires static jdk.incubator.vector;
+    // Метрики этапов публикуются как MXBean
+    requires java.management;
+    // События Java Flight Recorder: компиляция, кэш, медленные вычисления
+    requires jdk.jfr;
+
+    exports com.example.expression;
+    exports com.example.metrics;
+    exports com.example.util;
+}
@@ -0,0 +1,259 @@
+package com.example.expression;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Пакетное вычисление {@link CompiledExpression}: результаты и ошибки
+ * совпадают с построчным {@link CompiledExpression#evaluate(double...)}.
+ */
+class BatchEvaluatorTest {
+
+    /** Длины вокруг границ блока {@link BatchEvaluator#BLOCK_SIZE}. */
+    private static final int[] ROWS = {0, 1, 2, 255, 256, 257, 511, 512, 513, 1_000};
+
+    @Test
+    void batchMatchesRowByRow() {
+        SplittableRandom random = new SplittableRandom(21);
+        for (int i = 0; i < 600; i++) {
+            String source = RandomExpressions.next(random, 4);
+            CompiledExpression interpreted = CompiledExpression.parse(source);
+            for (CompiledExpression compiled : List.of(interpreted, interpreted.withJit())) {
+                int rows = ROWS[random.nextInt(ROWS.length)];
+                double[][] columns = columns(random, compiled.getVariableNames().size(), rows);
+                assertBatch(source, compiled, columns, 0, rows);
+                if (rows > 2) {
+                    assertBatch(source, compiled, columns, 1, rows - 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    void firstFailingRowAcrossBlocks() {
+        CompiledExpression compiled = CompiledExpression.parse("x / y + sqrt(x)");
+        for (CompiledExpression expression : List.of(compiled, compiled.withJit())) {
+            for (int[] failures : new int[][] {{0}, {255}, {256}, {257, 300}, {300, 257}, {511, 512}, {999}}) {
+                double[][] columns = {fill(1_000, 4.0), fill(1_000, 2.0)};
+                for (int row : failures) {
+                    columns[1][row] = 0.0;
+                }
+                assertBatch(expression.getSource(), expression, columns, 0, 1_000);
+            }
+            // Разные ошибки: в отчёт попадает самая ранняя строка, а не самая ранняя в блоке по типу
+            double[][] columns = {fill(1_000, 4.0), fill(1_000, 2.0)};
+            columns[0][400] = -1.0;
+            columns[1][401] = 0.0;
+            assertBatch(expression.getSource(), expression, columns, 0, 1_000);
+        }
+    }
+
+    @Test
+    void parallelMatchesRowByRow() throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(22);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (String source : new String[] {"x * y - z", "sin(x) / (y + 1) + max(z, x)", "2 ^ x + ln(abs(y) + 1)"}) {
+                CompiledExpression interpreted = CompiledExpression.parse(source);
+                for (CompiledExpression compiled : List.of(interpreted, interpreted.withJit())) {
+                    int rows = 200_000 + random.nextInt(1_000);
+                    double[][] columns = new double[3][rows];
+                    for (double[] column : columns) {
+                        Arrays.setAll(column, row -> random.nextDouble(-10, 10));
+                    }
+                    double[] expected = new double[rows];
+                    compiled.evaluateBatch(columns, expected);
+                    for (int row = 0; row < rows; row += 997) {
+                        assertEquals(bits(compiled.evaluate(columns[0][row], columns[1][row], columns[2][row])),
+                                bits(expected[row]), source);
+                    }
+                    double[] out = new double[rows];
+                    compiled.evaluateBatchParallel(columns, out);
+                    assertArrayEquals(expected, out, source);
+                    Arrays.fill(out, 0);
+                    compiled.evaluateBatchParallel(columns, out, pool);
+                    assertArrayEquals(expected, out, source);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelReportsFirstFailingRow() {
+        int rows = 300_000;
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            CompiledExpression interpreted = CompiledExpression.parse("x / y");
+            for (CompiledExpression compiled : List.of(interpreted, interpreted.withJit())) {
+                // Ошибки в конце каждой части: части завершаются почти одновременно,
+                // и ошибка из более поздней части не должна вытеснить раннюю
+                int[] late = {74_990, 87_370, 149_990, 174_750, 224_990, 262_130, rows - 10};
+                for (int[] failures : new int[][] {{0}, {rows - 1}, {250_000, 123_457, 123_458, 299_000}, late}) {
+                    double[][] columns = {fill(rows, 3.0), fill(rows, 2.0)};
+                    for (int row : failures) {
+                        columns[1][row] = 0.0;
+                    }
+                    int first = Arrays.stream(failures).min().getAsInt();
+                    for (Runnable batch : List.<Runnable>of(
+                            () -> compiled.evaluateBatchParallel(columns, new double[rows]),
+                            () -> compiled.evaluateBatchParallel(columns, new double[rows], new ForkJoinPool(3)),
+                            () -> compiled.evaluateBatchParallel(columns, new double[rows], pool))) {
+                        BatchEvaluationException e = assertThrows(BatchEvaluationException.class, batch::run);
+                        assertEquals(first, e.getRow());
+                        assertInstanceOf(ArithmeticException.class, e.getCause());
+                        assertEquals(String.format("Ошибка в строке %d: Деление на ноль", first), e.getMessage());
+                    }
+                    // Строки до первой ошибки вычислены
+                    double[] out = new double[rows];
+                    assertThrows(BatchEvaluationException.class, () -> compiled.evaluateBatchParallel(columns, out));
+                    for (int row = 0; row < first; row++) {
+                        if (out[row] != 1.5) {
+                            fail("строка " + row + ": " + out[row]);
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shortOrMissingColumnsAreRejected() {
+        CompiledExpression compiled = CompiledExpression.parse("x + y * 2");
+        double[] out = fill(10, 7.0);
+        double[] untouched = out.clone();
+
+        assertRejected("Ожидается столбцов переменных: 2, получено: 1",
+                () -> compiled.evaluateBatch(new double[][] {fill(10, 1)}, out));
+        assertRejected("Столбец переменной 'y' содержит 9 строк, требуется 10",
+                () -> compiled.evaluateBatch(new double[][] {fill(10, 1), fill(9, 1)}, out));
+        assertRejected("Столбец переменной 'x' содержит 3 строк, требуется 10",
+                () -> compiled.evaluateBatch(Map.of("x", fill(3, 1), "y", fill(10, 1)), out));
+        assertRejected("Ожидается столбцов переменных: 2, получено: 0",
+                () -> compiled.evaluateBatchParallel(new double[0][], out));
+        assertRejected("Столбец переменной 'x' содержит 0 строк, требуется 10",
+                () -> compiled.evaluateBatchParallel(new double[][] {new double[0], fill(10, 1)}, out));
+        assertRejected("Столбец переменной 'y' содержит 5 строк, требуется 6",
+                () -> compiled.evaluateBatch(new double[][] {fill(10, 1), fill(5, 1)}, out, 2, 6));
+        assertArrayEquals(untouched, out);
+
+        // Отсутствующий столбец: та же ошибка, что при построчном вычислении без переменной
+        IllegalArgumentException expected = assertThrows(IllegalArgumentException.class,
+                () -> compiled.evaluate(Map.of("x", 1.0)));
+        assertRejected(expected.getMessage(), () -> compiled.evaluateBatch(Map.of("x", fill(10, 1)), out));
+        IllegalArgumentException none = assertThrows(IllegalArgumentException.class,
+                () -> compiled.evaluate(Map.of()));
+        assertRejected(none.getMessage(), () -> compiled.evaluateBatch(Map.of(), out));
+        assertArrayEquals(untouched, out);
+        // Без строк вычислять нечего
+        compiled.evaluateBatch(Map.of(), new double[0]);
+
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> compiled.evaluateBatch(new double[][] {fill(10, 1), fill(10, 1)}, out, 5, 11));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> compiled.evaluateBatch(new double[][] {fill(10, 1), fill(10, 1)}, out, 6, 5));
+    }
+
+    /**
+     * Сверяет пакетное вычисление строк {@code [from, to)} с построчным:
+     * до первой ошибочной строки результаты совпадают побитно, исключение
+     * совпадает по типу и сообщению, а строки вне диапазона не меняются.
+     */
+    private static void assertBatch(String source, CompiledExpression compiled, double[][] columns, int from, int to) {
+        int rows = columns.length > 0 ? columns[0].length : to;
+        double[] expected = new double[rows];
+        RuntimeException error = null;
+        int failed = to;
+        double[] values = new double[columns.length];
+        for (int row = from; row < to && error == null; row++) {
+            for (int slot = 0; slot < columns.length; slot++) {
+                values[slot] = columns[slot][row];
+            }
+            try {
+                expected[row] = compiled.evaluate(values);
+            } catch (RuntimeException e) {
+                error = e;
+                failed = row;
+            }
+        }
+
+        double[] out = new double[rows];
+        Arrays.fill(out, Double.NaN);
+        try {
+            compiled.evaluateBatch(columns, out, from, to);
+            if (error != null) {
+                fail(source + ": ожидалась ошибка в строке " + failed + ": " + error);
+            }
+        } catch (RuntimeException e) {
+            if (error == null) {
+                throw e;
+            }
+            assertEquals(error.getClass(), e.getClass(), source);
+            assertEquals(error.getMessage(), e.getMessage(), source);
+        }
+        for (int row = 0; row < rows; row++) {
+            if (row < from || row >= to) {
+                assertEquals(bits(Double.NaN), bits(out[row]), source + ": строка " + row + " вне диапазона");
+            } else if (row < failed && bits(expected[row]) != bits(out[row])) {
+                fail(source + ": строка " + row + ": " + expected[row] + " != " + out[row]);
+            }
+        }
+
+        if (from == 0 && to == rows && columns.length == compiled.getVariableNames().size()) {
+            Map<String, double[]> named = new HashMap<>();
+            for (int slot = 0; slot < columns.length; slot++) {
+                named.put(compiled.getVariableNames().get(slot), columns[slot]);
+            }
+            double[] byName = new double[rows];
+            try {
+                compiled.evaluateBatch(named, byName);
+                assertEquals(null, error, source);
+                assertArrayEquals(out, byName, source);
+            } catch (RuntimeException e) {
+                assertEquals(error == null ? null : error.getMessage(), e.getMessage(), source);
+            }
+        }
+    }
+
+    private static double[][] columns(SplittableRandom random, int count, int rows) {
+        double[][] columns = new double[count][rows];
+        for (double[] column : columns) {
+            // Редкие особые значения дают ошибки в случайных строках
+            Arrays.setAll(column, row -> random.nextInt(50) == 0
+                    ? RandomExpressions.value(random) : random.nextDouble(-5, 5));
+        }
+        return columns;
+    }
+
+    private static double[] fill(int rows, double value) {
+        double[] column = new double[rows];
+        Arrays.fill(column, value);
+        return column;
+    }
+
+    private static long bits(double value) {
+        return Double.doubleToLongBits(value);
+    }
+
+    private static void assertRejected(String message, Runnable batch) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, batch::run);
+        assertEquals(message, e.getMessage());
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.expression;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * {@link ExpressionOptimizer}: оптимизированное выражение вычисляется так же,
+ * как исходное, до бита и до текста ошибки.
+ */
+class ExpressionOptimizerTest {
+
+    private static final ExpressionEvaluator EVALUATOR = ExpressionEvaluator.createDefault();
+    private static final ExpressionOptimizer OPTIMIZER = ExpressionOptimizer.createDefault();
+
+    /** NaN с ненулевым содержимым: тождества должны возвращать его как есть. */
+    private static final double PAYLOAD_NAN = Double.longBitsToDouble(0x7ff8_0000_0000_0123L);
+
+    @Test
+    void randomExpressionsKeepResults() {
+        SplittableRandom random = new SplittableRandom(11);
+        int folded = 0;
+        for (int i = 0; i < 20_000; i++) {
+            String source = RandomExpressions.next(random, 5);
+            List<Token> rpn = CompiledExpression.parse(source).getRPN();
+            List<Token> optimized = OPTIMIZER.optimize(rpn);
+            if (optimized.size() < rpn.size()) {
+                folded++;
+            }
+            Program plain = EVALUATOR.compile(rpn);
+            Program fast = EVALUATOR.compile(optimized);
+            for (int round = 0; round < 4; round++) {
+                Map<String, Double> variables = new HashMap<>();
+                for (String name : RandomExpressions.VARIABLES) {
+                    variables.put(name, RandomExpressions.value(random));
+                }
+                String context = source + " при " + variables;
+                DoubleSupplier expected = () -> EVALUATOR.evaluate(rpn, variables);
+                assertSameOutcome(expected, () -> EVALUATOR.evaluate(optimized, variables), context);
+                assertSameOutcome(expected, () -> run(fast, variables), context);
+                assertSameOutcome(() -> run(plain, variables), () -> run(fast, variables), context);
+            }
+        }
+        assertTrue(folded > 5_000, "упрощено выражений: " + folded);
+    }
+
+    @Test
+    void plusZeroIsKept() {
+        for (String source : new String[] {"x + 0", "0 + x", "x + (1 - 1)", "x - -0"}) {
+            List<Token> rpn = CompiledExpression.parse(source).getRPN();
+            List<Token> optimized = OPTIMIZER.optimize(rpn);
+            assertTrue(optimized.size() > 1, source);
+            assertEquals(bits(evaluate(rpn, -0.0)), bits(evaluate(optimized, -0.0)), source);
+        }
+        assertEquals(bits(0.0), bits(CompiledExpression.parse("x + 0").evaluate(-0.0)));
+        assertEquals(bits(0.0), bits(CompiledExpression.parse("x - -0").evaluate(-0.0)));
+    }
+
+    @Test
+    void identitiesAreExact() {
+        double[] values = {0.0, -0.0, 1.0, -2.5, 1e-11, Double.MIN_VALUE, Double.MAX_VALUE,
+                Double.NaN, PAYLOAD_NAN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (String source : new String[] {"x*1", "1*x", "x×1", "x/1", "x÷1", "x^1", "x-0", "x+-0", "-0+x",
+                "-(-x)", "-(-(-(-x)))", "((x*1)/1)^1 - 0"}) {
+            List<Token> rpn = CompiledExpression.parse(source).getRPN();
+            List<Token> optimized = OPTIMIZER.optimize(rpn);
+            assertEquals(1, optimized.size(), source);
+            assertEquals("x", optimized.get(0).getValue(), source);
+            for (double x : values) {
+                assertEquals(Double.doubleToRawLongBits(x), Double.doubleToRawLongBits(evaluate(optimized, x)), source);
+                assertEquals(bits(evaluate(rpn, x)), bits(evaluate(optimized, x)), source + " при " + x);
+            }
+        }
+    }
+
+    @Test
+    void failingFoldStaysInPlace() {
+        String[][] cases = {
+                {"x + 1 / 0", "/"},
+                {"x * (2 ÷ (1 - 1))", "÷"},
+                {"ln(-1) * x", "ln"},
+                {"log(0) + 1", "log"},
+                {"sqrt(-4) + x", "sqrt"},
+                {"√(1 - 2)", "√"},
+                {"cot(0) - x", "cot"},
+                {"max(1, 2 / 0)", "/"},
+        };
+        for (String[] c : cases) {
+            String source = c[0];
+            List<Token> rpn = CompiledExpression.parse(source).getRPN();
+            List<Token> optimized = OPTIMIZER.optimize(rpn);
+            assertTrue(optimized.stream().anyMatch(t -> t.getValue().equals(c[1])), source);
+
+            CompiledExpression compiled = CompiledExpression.compile(source);
+            RuntimeException expected = assertThrows(RuntimeException.class, () -> evaluate(rpn, 1.0), source);
+            RuntimeException actual = assertThrows(RuntimeException.class, () -> compiled.evaluate(1.0), source);
+            assertEquals(expected.getClass(), actual.getClass(), source);
+            assertEquals(expected.getMessage(), actual.getMessage(), source);
+        }
+    }
+
+    @Test
+    void foldedTokensSpanSubtree() {
+        assertFolded("x*(2 + 3*4)", "2 + 3*4", 14.0);
+        assertFolded("sin(0) + x", "sin(0", 0.0);
+        assertFolded("x - -(2)", "-(2", -2.0);
+        assertFolded("max(x, 2 ^ 10)", "2 ^ 10", 1024.0);
+        assertFolded("π * e + x", "π * e", Math.PI * Math.E);
+
+        SplittableRandom random = new SplittableRandom(12);
+        for (int i = 0; i < 20_000; i++) {
+            String source = RandomExpressions.next(random, 5);
+            List<Token> rpn = CompiledExpression.parse(source).getRPN();
+            assertSpans(source, rpn, OPTIMIZER.optimize(rpn));
+        }
+    }
+
+    /**
+     * Проверяет, что каждый свёрнутый токен занимает ровно исходные токены
+     * своего поддерева: без переменных, без сохранённых токенов и без
+     * пересечений, а значение совпадает с вычислением этого поддерева.
+     */
+    private static void assertSpans(String source, List<Token> rpn, List<Token> optimized) {
+        Set<Token> original = Collections.newSetFromMap(new IdentityHashMap<>());
+        original.addAll(rpn);
+        List<Token> folded = new ArrayList<>();
+        for (Token token : optimized) {
+            if (!original.contains(token)) {
+                folded.add(token);
+            }
+        }
+        for (Token token : folded) {
+            List<Token> subtree = new ArrayList<>();
+            int from = -1;
+            for (int i = 0; i < rpn.size(); i++) {
+                Token t = rpn.get(i);
+                if (t.getStart() >= token.getStart() && t.getEnd() <= token.getEnd()) {
+                    if (from >= 0 && from + subtree.size() != i) {
+                        fail(source + ": поддерево " + token + " не подряд в RPN");
+                    }
+                    from = from < 0 ? i : from;
+                    subtree.add(t);
+                    assertNotEquals(TokenType.VARIABLE, t.getType(), source);
+                }
+            }
+            assertTrue(subtree.stream().anyMatch(t -> t.getStart() == token.getStart()), source + " " + token);
+            assertTrue(subtree.stream().anyMatch(t -> t.getEnd() == token.getEnd()), source + " " + token);
+            assertEquals(bits(token.getNumber()), bits(EVALUATOR.evaluate(subtree, Map.of())), source + " " + token);
+            for (Token other : optimized) {
+                if (other != token) {
+                    assertTrue(other.getEnd() <= token.getStart() || other.getStart() >= token.getEnd(),
+                            source + ": " + other + " внутри " + token);
+                }
+            }
+        }
+    }
+
+    private static void assertFolded(String source, String span, double value) {
+        List<Token> rpn = CompiledExpression.parse(source).getRPN();
+        List<Token> optimized = OPTIMIZER.optimize(rpn);
+        Token folded = optimized.stream()
+                .filter(t -> t.getType() == TokenType.NUMBER && !rpn.contains(t))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(source + ": нет свёрнутого токена"));
+        assertEquals(span, source.substring(folded.getStart(), folded.getEnd()), source);
+        assertEquals(bits(value), bits(folded.getNumber()), source);
+        assertSpans(source, rpn, optimized);
+    }
+
+    private static double evaluate(List<Token> rpn, double x) {
+        return EVALUATOR.evaluate(rpn, Map.of("x", x));
+    }
+
+    private static double run(Program program, Map<String, Double> variables) {
+        double[] values = new double[program.variables.length];
+        for (int slot = 0; slot < values.length; slot++) {
+            values[slot] = variables.get(program.variables[slot]);
+        }
+        return program.run(values, new double[program.maxStackDepth]);
+    }
+
+    private static long bits(double value) {
+        return Double.doubleToLongBits(value);
+    }
+
+    private static void assertSameOutcome(DoubleSupplier expected, DoubleSupplier actual, String context) {
+        double value;
+        try {
+            value = expected.getAsDouble();
+        } catch (RuntimeException e) {
+            RuntimeException error = assertThrows(RuntimeException.class, actual::getAsDouble, context);
+            assertEquals(e.getClass(), error.getClass(), context);
+            assertEquals(e.getMessage(), error.getMessage(), context);
+            return;
+        }
+        double result = actual.getAsDouble();
+        assertEquals(bits(value), bits(result), () -> context + ": " + value + " != " + result);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.expression;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * {@link ExpressionTokenizer}: типы, значения и позиции токенов, а также
+ * текст ошибки для недопустимых символов.
+ */
+class ExpressionTokenizerTest {
+
+    private static final ExpressionTokenizer TOKENIZER = new ExpressionTokenizer(
+            ExpressionDefinitions.FUNCTION_NAMES, ExpressionDefinitions.CONSTANT_NAMES);
+
+    @Test
+    void singleCodePointKeywords() {
+        assertTokens("π", "CONSTANT π 0:1");
+        assertTokens("√(2π)", "FUNCTION √ 0:1", "LEFT_PAREN ( 1:2", "NUMBER 2 2:3", "CONSTANT π 3:4",
+                "RIGHT_PAREN ) 4:5");
+        assertTokens("ππ", "CONSTANT π 0:1", "CONSTANT π 1:2");
+        assertTokens("√√x", "FUNCTION √ 0:1", "FUNCTION √ 1:2", "VARIABLE x 2:3");
+        assertTokens("2×3÷4", "NUMBER 2 0:1", "OPERATOR × 1:2", "NUMBER 3 2:3", "OPERATOR ÷ 3:4",
+                "NUMBER 4 4:5");
+    }
+
+    @Test
+    void keywordsIgnoreCase() {
+        assertTokens("SIN(X)", "FUNCTION SIN 0:3", "LEFT_PAREN ( 3:4", "VARIABLE X 4:5", "RIGHT_PAREN ) 5:6");
+        assertTokens("Pi*E", "CONSTANT Pi 0:2", "OPERATOR * 2:3", "CONSTANT E 3:4");
+        assertTokens("Π", "CONSTANT Π 0:1");
+        assertTokens("Sqrt", "FUNCTION Sqrt 0:4");
+        // Ключевое слово — только идентификатор целиком
+        assertTokens("sinx", "VARIABLE sinx 0:4");
+        assertTokens("pi2", "VARIABLE pi2 0:3");
+        assertTokens("e_1", "VARIABLE e_1 0:3");
+    }
+
+    @Test
+    void numbers() {
+        assertTokens("0", "NUMBER 0 0:1");
+        assertTokens("007.250", "NUMBER 007.250 0:7");
+        assertTokens("12.5x", "NUMBER 12.5 0:4", "VARIABLE x 4:5");
+        assertTokens("2e", "NUMBER 2 0:1", "CONSTANT e 1:2");
+        // Точка входит в число, только если с обеих сторон цифры
+        assertError("1.", "'.'");
+        assertError(".5", "'.'");
+        assertError("1.x", "'.'");
+        assertError("1..5", "'.', '.'");
+        assertError("1.2.3", "'.'");
+        assertError(". 5", "'.'");
+    }
+
+    @Test
+    void whitespaceIsSkipped() {
+        assertTokens("", new String[0]);
+        assertTokens(" \t\n\r\f\u000B", new String[0]);
+        assertTokens("  1 +\t2\n", "NUMBER 1 2:3", "OPERATOR + 4:5", "NUMBER 2 6:7");
+        assertTokens("max( x ,y )", "FUNCTION max 0:3", "LEFT_PAREN ( 3:4", "VARIABLE x 5:6", "DELIMITER , 7:8",
+                "VARIABLE y 8:9", "RIGHT_PAREN ) 10:11");
+        // Пробел разделяет токены
+        assertTokens("1 2", "NUMBER 1 0:1", "NUMBER 2 2:3");
+        assertTokens("s in", "VARIABLE s 0:1", "VARIABLE in 2:4");
+        // Неразрывный пробел пробелом не считается
+        assertError("1 + 2", "' '");
+    }
+
+    @Test
+    void invalidCharactersAreListedInOrder() {
+        assertError("2 $ 3", "'$'");
+        assertError("a = b; c", "'=', ';'");
+        assertError("x ≥ 0 & y", "'≥', '&'");
+        assertError("# #", "'#', '#'");
+    }
+
+    @Test
+    void surrogatePairsStayWhole() {
+        // U+1D465 (математическая x) занимает две единицы UTF-16
+        assertError("2 + 𝑥", "'𝑥'");
+        assertError("𝑥𝑦", "'𝑥', '𝑦'");
+        assertError("1 😀 2 ✓", "'😀', '✓'");
+        // Одиночная половина пары сообщается как есть, не захватывая соседа
+        assertError("\uD835+1", "'\uD835'");
+        assertError("x\uDC65y", "'\uDC65'");
+    }
+
+    @Test
+    void errorsDoNotDependOnWhitespace() {
+        assertEquals(
+                assertThrows(IllegalArgumentException.class, () -> TOKENIZER.tokenize("1$2")).getMessage(),
+                assertThrows(IllegalArgumentException.class, () -> TOKENIZER.tokenize(" 1 $ 2 ")).getMessage());
+    }
+
+    /**
+     * Проверяет токены в виде «ТИП значение начало:конец».
+     */
+    private static void assertTokens(String expression, String... expected) {
+        List<String> actual = TOKENIZER.tokenize(expression).stream()
+                .map(t -> t.getType() + " " + t.getValue() + " " + t.getStart() + ":" + t.getEnd())
+                .toList();
+        assertEquals(List.of(expected), actual, expression);
+    }
+
+    private static void assertError(String expression, String characters) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> TOKENIZER.tokenize(expression), expression);
+        assertEquals("Недопустимые символы: " + characters, e.getMessage(), expression);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.expression;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Сверка байт‑кода {@link JitCompiler} с интерпретатором
+ * {@link ExpressionEvaluator}: значения должны совпадать побитно с точностью
+ * до содержимого NaN (знак нуля различается), а ошибки — по типу и сообщению.
+ */
+class JitCompilerTest {
+
+    private static final ExpressionEvaluator EVALUATOR = ExpressionEvaluator.createDefault();
+
+    @Test
+    void randomExpressionsMatchInterpreter() {
+        SplittableRandom random = new SplittableRandom(7);
+        int failures = 0;
+        for (int i = 0; i < 20_000; i++) {
+            String source = RandomExpressions.next(random, 5);
+            CompiledExpression interpreted = CompiledExpression.parse(source);
+            CompiledExpression compiled = interpreted.withJit();
+            assertTrue(compiled.isJitCompiled(), source);
+            for (int round = 0; round < 4; round++) {
+                Map<String, Double> variables = new HashMap<>();
+                for (String name : RandomExpressions.VARIABLES) {
+                    variables.put(name, RandomExpressions.value(random));
+                }
+                double[] values = slots(compiled, variables);
+                Outcome expected = Outcome.of(() -> EVALUATOR.evaluate(interpreted.getRPN(), variables));
+                assertOutcome(expected, () -> interpreted.evaluate(variables), source, variables);
+                assertOutcome(expected, () -> compiled.evaluate(variables), source, variables);
+                assertOutcome(expected, () -> compiled.evaluate(values), source, variables);
+                if (expected.error != null) {
+                    failures++;
+                }
+            }
+        }
+        // Ошибки вычисления должны встречаться, иначе сверка их не проверяет
+        assertTrue(failures > 1_000, "ошибок: " + failures);
+    }
+
+    @Test
+    void missingVariablesMatchInterpreter() {
+        SplittableRandom random = new SplittableRandom(8);
+        for (int i = 0; i < 5_000; i++) {
+            String source = RandomExpressions.next(random, 4);
+            CompiledExpression compiled = CompiledExpression.parse(source).withJit();
+            Map<String, Double> variables = new HashMap<>();
+            for (String name : RandomExpressions.VARIABLES) {
+                if (random.nextBoolean()) {
+                    variables.put(name, RandomExpressions.value(random));
+                }
+            }
+            Outcome expected = Outcome.of(() -> EVALUATOR.evaluate(compiled.getRPN(), variables));
+            assertOutcome(expected, () -> compiled.evaluate(variables), source, variables);
+        }
+    }
+
+    @Test
+    void edgeCases() {
+        assertBits(-0.0, "-x", 0.0);
+        assertBits(0.0, "x + 0", -0.0);
+        assertBits(-0.0, "x * 1", -0.0);
+        assertBits(-0.0, "x - 0", -0.0);
+        assertBits(-0.0, "max(x, -0)", -0.0);
+        assertBits(0.0, "max(x, -0)", 0.0);
+        assertBits(-0.0, "min(x, 0)", -0.0);
+        assertBits(Double.NaN, "max(x, 1)", Double.NaN);
+        assertBits(Double.NaN, "x * 0", Double.POSITIVE_INFINITY);
+        assertBits(1.0, "x ^ 0", Double.NaN);
+        assertBits(-0.0, "1 / x", Double.NEGATIVE_INFINITY);
+        assertBits(Double.NaN, "x / x", Double.POSITIVE_INFINITY);
+        assertError("Деление на ноль", "1 / x", 0.0);
+        assertError("Деление на ноль", "1 / x", -0.0);
+        assertError("Деление на ноль", "1 / x", 1e-11);
+        assertError("Деление на ноль", "x / (x - x)", 5.0);
+        assertError("Деление на ноль", "(x - x) / 0", Double.NaN);
+    }
+
+    private static void assertBits(double expected, String source, double x) {
+        CompiledExpression compiled = CompiledExpression.parse(source).withJit();
+        assertTrue(compiled.isJitCompiled(), source);
+        assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(compiled.evaluate(x)), source);
+        assertEquals(Double.doubleToLongBits(expected),
+                Double.doubleToLongBits(EVALUATOR.evaluate(compiled.getRPN(), Map.of("x", x))), source);
+    }
+
+    private static void assertError(String message, String source, double x) {
+        CompiledExpression compiled = CompiledExpression.parse(source).withJit();
+        for (DoubleSupplier evaluation : List.<DoubleSupplier>of(
+                () -> compiled.evaluate(x),
+                () -> EVALUATOR.evaluate(compiled.getRPN(), Map.of("x", x)))) {
+            Outcome outcome = Outcome.of(evaluation);
+            assertNull(outcome.value, source);
+            assertEquals(message, outcome.error.getMessage(), source);
+        }
+    }
+
+    private static double[] slots(CompiledExpression compiled, Map<String, Double> variables) {
+        List<String> names = compiled.getVariableNames();
+        double[] values = new double[names.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = variables.get(names.get(i));
+        }
+        return values;
+    }
+
+    private static void assertOutcome(Outcome expected, DoubleSupplier evaluation, String source,
+                                      Map<String, Double> variables) {
+        Outcome actual = Outcome.of(evaluation);
+        String context = source + " при " + variables;
+        if (expected.error != null) {
+            if (actual.error == null) {
+                fail(context + ": ожидалась ошибка " + expected.error + ", получено " + actual.value);
+            }
+            assertEquals(expected.error.getClass(), actual.error.getClass(), context);
+            assertEquals(expected.error.getMessage(), actual.error.getMessage(), context);
+        } else {
+            if (actual.error != null) {
+                fail(context + ": ожидалось " + expected.value + ", получена ошибка " + actual.error);
+            }
+            assertEquals(Double.doubleToLongBits(expected.value), Double.doubleToLongBits(actual.value),
+                    () -> context + ": " + expected.value + " != " + actual.value);
+        }
+    }
+
+    /** Результат вычисления: значение или ошибка. */
+    private record Outcome(Double value, RuntimeException error) {
+
+        static Outcome of(DoubleSupplier evaluation) {
+            try {
+                return new Outcome(evaluation.getAsDouble(), null);
+            } catch (RuntimeException e) {
+                return new Outcome(null, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.expression;
+
+import java.util.SplittableRandom;
+
+/**
+ * Генератор случайных выражений для сверки вычислителей.
+ * <p>
+ * Выражения строятся из операций, которые поддерживают все способы
+ * вычисления, включая байт‑код {@link JitCompiler}: числа, константы,
+ * переменные {@code x}, {@code y}, {@code z}, бинарные операторы, унарный
+ * минус и встроенные функции. Чаще обычного встречаются нули, единицы и
+ * тождества вроде {@code x*1}, на которых ошибаются оптимизации.
+ * </p>
+ */
+final class RandomExpressions {
+
+    static final String[] VARIABLES = {"x", "y", "z"};
+
+    /** Значения переменных: знаковые нули, NaN, бесконечности и порог деления. */
+    static final double[] SPECIAL_VALUES = {
+            0.0, -0.0, 1.0, -1.0, 0.5, 2.0, 1e-11, -1e-11, 1e300,
+            Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY
+    };
+
+    private static final String[] NUMBERS = {"0", "1", "2", "3", "0.5", "10", "2.75", "0.00000000001", "100"};
+    private static final String[] CONSTANTS = {"pi", "π", "e"};
+    private static final String[] OPERATORS = {"+", "-", "*", "×", "/", "÷", "^"};
+    private static final String[] FUNCTIONS = {"sin", "cos", "tan", "cot", "ln", "log", "sqrt", "√", "abs", "exp"};
+    private static final String[] PAIRS = {"max", "min"};
+    private static final String[] IDENTITIES = {"(%s)*1", "1*(%s)", "(%s)/1", "(%s)^1", "(%s)-0", "(%s)+0",
+            "(%s)+-0", "-0+(%s)", "-(-(%s))", "0-(%s)", "(%s)*0"};
+
+    private RandomExpressions() {
+    }
+
+    /**
+     * Строит случайное выражение.
+     *
+     * @param random источник случайности
+     * @param depth  наибольшая глубина вложенности
+     * @return текст выражения
+     */
+    static String next(SplittableRandom random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            return leaf(random);
+        }
+        return switch (random.nextInt(8)) {
+            case 0, 1, 2 -> next(random, depth - 1) + " " + pick(random, OPERATORS) + " " + next(random, depth - 1);
+            case 3 -> "(" + next(random, depth - 1) + ")";
+            case 4 -> "-" + (random.nextBoolean() ? leaf(random) : "(" + next(random, depth - 1) + ")");
+            case 5 -> pick(random, FUNCTIONS) + "(" + next(random, depth - 1) + ")";
+            case 6 -> pick(random, PAIRS) + "(" + next(random, depth - 1) + ", " + next(random, depth - 1) + ")";
+            default -> String.format(pick(random, IDENTITIES), next(random, depth - 1));
+        };
+    }
+
+    /**
+     * Возвращает значение переменной: чаще особое, иногда произвольное.
+     */
+    static double value(SplittableRandom random) {
+        if (random.nextBoolean()) {
+            return SPECIAL_VALUES[random.nextInt(SPECIAL_VALUES.length)];
+        }
+        return (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(-3, 4));
+    }
+
+    private static String leaf(SplittableRandom random) {
+        return switch (random.nextInt(3)) {
+            case 0 -> pick(random, NUMBERS);
+            case 1 -> pick(random, CONSTANTS);
+            default -> pick(random, VARIABLES);
+        };
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Журнал {@link History}: запись и повторное открытие, восстановление
+ * после сбоя, очистка и поиск.
+ */
+class HistoryTest {
+
+    /** Заголовок журнала: сигнатура, версия и поколение. */
+    private static final int HEADER_SIZE = 12;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void entriesSurviveReopen() throws IOException {
+        Path file = directory.resolve("history.log");
+        // Больше 1 МБ, чтобы старые записи читались из отображения файла
+        List<String> expected = entries(new SplittableRandom(1), 50_000);
+        expected.add("");
+        expected.add("√(π) ≈ 1.77245385");
+        for (History.Sync sync : History.Sync.values()) {
+            Files.deleteIfExists(file);
+            try (History history = History.open(file, sync, 7)) {
+                expected.forEach(history::addEntry);
+                assertEntries(expected, history);
+            }
+            try (History history = History.open(file)) {
+                assertEntries(expected, history);
+            }
+        }
+    }
+
+    @Test
+    void openFileIsLocked() throws IOException {
+        Path file = directory.resolve("history.log");
+        try (History history = History.open(file)) {
+            assertThrows(IOException.class, () -> History.open(file));
+        }
+    }
+
+    @Test
+    void foreignFileIsRejected() throws IOException {
+        Path file = directory.resolve("notes.txt");
+        Files.writeString(file, "not a history log");
+        assertThrows(IOException.class, () -> History.open(file));
+        assertEquals("not a history log", Files.readString(file));
+    }
+
+    @Test
+    void tornTailIsTruncated() throws IOException {
+        Path file = directory.resolve("history.log");
+        List<String> expected = write(file, entries(new SplittableRandom(2), 100));
+        long length = Files.size(file);
+
+        // Последняя запись оборвана на середине
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length - 3);
+        }
+        expected.remove(expected.size() - 1);
+        long recovered;
+        try (History history = History.open(file)) {
+            assertEntries(expected, history);
+            recovered = Files.size(file);
+            assertTrue(recovered < length - 3);
+            history.addEntry("после сбоя");
+        }
+        expected.add("после сбоя");
+        try (History history = History.open(file)) {
+            assertEntries(expected, history);
+        }
+
+        // Начало записи без тела
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(6).putInt(1_000).flip());
+        }
+        try (History history = History.open(file)) {
+            assertEntries(expected, history);
+        }
+    }
+
+    @Test
+    void corruptRecordIsTruncated() throws IOException {
+        Path file = directory.resolve("history.log");
+        List<String> expected = write(file, List.of("1 + 1 = 2", "2 * 3 = 6", "10 / 4 = 2.5", "2^10 = 1024"));
+        // Байт третьей записи: она и всё после неё отбрасываются
+        int third = HEADER_SIZE + recordSize("1 + 1 = 2") + recordSize("2 * 3 = 6");
+        flip(file, third + 5);
+        try (History history = History.open(file)) {
+            assertEntries(expected.subList(0, 2), history);
+        }
+        assertEquals(third, Files.size(file));
+
+        // Испорченная длина записи
+        flip(file, HEADER_SIZE + recordSize("1 + 1 = 2"));
+        try (History history = History.open(file)) {
+            assertEntries(expected.subList(0, 1), history);
+        }
+    }
+
+    @Test
+    void recordsLargerThanRecoveryBlock() throws IOException {
+        Path file = directory.resolve("history.log");
+        SplittableRandom random = new SplittableRandom(3);
+        List<String> expected = new ArrayList<>();
+        for (int length : new int[] {10, 64 * 1024 - 8, 64 * 1024, 200_000, 12, 1_000_000, 5}) {
+            StringBuilder entry = new StringBuilder(length);
+            while (entry.length() < length) {
+                entry.append((char) ('a' + random.nextInt(26)));
+            }
+            expected.add(entry.toString());
+        }
+        write(file, expected);
+        try (History history = History.open(file)) {
+            assertEntries(expected, history);
+        }
+
+        // Оборванная большая запись в конце
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - recordSize("xxxxx") - 100_000);
+        }
+        try (History history = History.open(file)) {
+            assertEntries(expected.subList(0, expected.size() - 2), history);
+        }
+    }
+
+    @Test
+    void clearDiscardsJournal() throws IOException {
+        Path file = directory.resolve("history.log");
+        List<String> old = entries(new SplittableRandom(4), 40_000);
+        List<String> fresh = List.of("1 + 2 = 3", "√4 = 2");
+        try (History history = History.open(file, History.Sync.NONE, 1)) {
+            old.forEach(history::addEntry);
+            history.clear();
+            assertTrue(history.isEmpty());
+            // Прежние записи остаются в файле за новыми
+            fresh.forEach(history::addEntry);
+            assertEntries(fresh, history);
+            assertArrayEquals(new int[] {1}, history.findByPrefix("√", 10));
+        }
+        assertTrue(Files.size(file) > HEADER_SIZE + recordSize("1 + 2 = 3") + recordSize("√4 = 2"));
+        try (History history = History.open(file)) {
+            assertEntries(fresh, history);
+            history.clear();
+        }
+        try (History history = History.open(file)) {
+            assertEntries(List.of(), history);
+            // Очистка, пока старые записи читаются из отображения файла
+            List<String> more = entries(new SplittableRandom(5), 40_000);
+            more.forEach(history::addEntry);
+            history.clear();
+            history.addEntry("0 = 0");
+        }
+        try (History history = History.open(file)) {
+            assertEntries(List.of("0 = 0"), history);
+        }
+        assertEquals(HEADER_SIZE + recordSize("0 = 0"), Files.size(file));
+    }
+
+    @Test
+    void searchMatchesScan() throws IOException {
+        SplittableRandom random = new SplittableRandom(6);
+        String[] queries = {"", "1", "12", "s", "sin", "+", "π", "= 1", " = ", "√", "x", "∞"};
+        try (History history = History.open(directory.resolve("history.log"), History.Sync.NONE, 16)) {
+            List<String> entries = new ArrayList<>();
+            // Поиск между добавлениями достраивает упорядоченный индекс
+            for (int round = 0; round < 8; round++) {
+                for (String entry : entries(random, 1 + random.nextInt(3_000))) {
+                    history.addEntry(entry);
+                    entries.add(entry);
+                }
+                for (String query : queries) {
+                    for (int limit : new int[] {0, 1, 5, Integer.MAX_VALUE}) {
+                        assertArrayEquals(scan(entries, query, limit, true), history.findByPrefix(query, limit),
+                                "prefix " + query);
+                        assertArrayEquals(scan(entries, query, limit, false), history.findContaining(query, limit),
+                                "contains " + query);
+                    }
+                }
+                String sample = entries.get(random.nextInt(entries.size()));
+                int from = random.nextInt(sample.length() + 1);
+                String query = sample.substring(from, from + random.nextInt(sample.length() - from + 1));
+                assertArrayEquals(scan(entries, query, 50, true), history.findByPrefix(query, 50), query);
+                assertArrayEquals(scan(entries, query, 50, false), history.findContaining(query, 50), query);
+            }
+        }
+    }
+
+    @Test
+    void memoryHistory() {
+        History history = new History();
+        history.addEntry("1 + 1 = 2");
+        history.addEntry("2 + 2 = 4");
+        assertEquals("1 + 1 = 2\n2 + 2 = 4", history.getFormattedHistory());
+        history.clear();
+        assertTrue(history.isEmpty());
+        history.addEntry("3 = 3");
+        assertEntries(List.of("3 = 3"), history);
+    }
+
+    /** Случайные записи вида «выражение = результат» из небольшого алфавита. */
+    private static List<String> entries(SplittableRandom random, int count) {
+        String[] parts = {"1", "2", "12", "3.5", "x", "sin(", "cos(", ")", " + ", " - ", " * ", "^", "π", "√", "√(π)"};
+        List<String> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder entry = new StringBuilder();
+            for (int n = random.nextInt(1, 12); n > 0; n--) {
+                entry.append(parts[random.nextInt(parts.length)]);
+            }
+            entries.add(entry.append(" = ").append(random.nextInt(1000)).toString());
+        }
+        return entries;
+    }
+
+    private static List<String> write(Path file, List<String> entries) throws IOException {
+        try (History history = History.open(file, History.Sync.NONE, 3)) {
+            entries.forEach(history::addEntry);
+        }
+        return new ArrayList<>(entries);
+    }
+
+    private static void assertEntries(List<String> expected, History history) {
+        assertEquals(expected.size(), history.size());
+        assertEquals(expected, history.getEntries(0, expected.size()));
+    }
+
+    private static int recordSize(String entry) {
+        return entry.getBytes(StandardCharsets.UTF_8).length + 8;
+    }
+
+    private static void flip(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, position);
+            channel.write(b.put(0, (byte) (b.get(0) ^ 0x40)).rewind(), position);
+        }
+    }
+
+    /** Номера подходящих записей перебором, от новых к старым. */
+    private static int[] scan(List<String> entries, String query, int limit, boolean prefix) {
+        List<Integer> found = new ArrayList<>();
+        for (int i = entries.size() - 1; i >= 0 && found.size() < limit; i--) {
+            if (prefix ? entries.get(i).startsWith(query) : entries.get(i).contains(query)) {
+                found.add(i);
+            }
+        }
+        return found.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сверка {@link NumberFormatter} с прежней реализацией на основе
+ * {@link String#format} и регулярных выражений.
+ * <p>
+ * Каждое семейство входов — это случайные числа с фиксированным зерном, так
+ * что расхождение воспроизводится. Все четыре варианта {@code format}
+ * должны давать текст, совпадающий с прежним посимвольно. Число входов на
+ * семейство задаётся свойством {@code numberFormatter.samples}, например
+ * {@code mvn test -DnumberFormatter.samples=30000000}.
+ * </p>
+ */
+class NumberFormatterTest {
+
+    private static final int SAMPLES = Integer.getInteger("numberFormatter.samples", 200_000);
+
+    /**
+     * Прежняя реализация печатает числа порядка 10<sup>300</sup> в сотни раз
+     * медленнее, поэтому семейств с такими числами берётся меньше.
+     */
+    private static final int LARGE_SAMPLES = SAMPLES / 10;
+
+    /** Прежняя реализация {@link NumberFormatter#format(double)}. */
+    private static String legacy(double value) {
+        if (Math.abs(value) < 1e-10) {
+            value = 0;
+        }
+        if (value == (long) value) {
+            return String.format("%d", (long) value);
+        }
+        return String.format(Locale.US, "%.8f", value).replaceAll("0+$", "").replaceAll("\\.$", "");
+    }
+
+    @Test
+    void specialValues() {
+        double[] values = {
+                0.0, -0.0, 1e-10, -1e-10, Math.nextDown(1e-10), 1e-9, 0.5e-8, 0.49999999e-8,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.MIN_VALUE, Double.MIN_NORMAL, Double.MAX_VALUE, -Double.MAX_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE, 0x1p63, Math.nextUp(0x1p63), Math.nextDown(0x1p63),
+                -Math.nextUp(0x1p63), 0x1p64, 1e20, 1e23, 2e23, 9.007199254740993e15,
+                0.123456785, 0.1, 0.2, 0.3, 1.005, 2.675, 1.99999999, 1.999999995, 0.999999995,
+                123456789.123456789, 4.35, 0.045, 1e16 + 0.5, 4503599627370495.5,
+        };
+        for (double value : values) {
+            check(value);
+        }
+    }
+
+    @Test
+    void randomBits() {
+        SplittableRandom random = new SplittableRandom(17);
+        run(LARGE_SAMPLES, () -> Double.longBitsToDouble(random.nextLong()));
+    }
+
+    @Test
+    void randomMagnitudes() {
+        SplittableRandom random = new SplittableRandom(29);
+        run(SAMPLES, () -> {
+            double value = random.nextDouble() * Math.pow(10, random.nextInt(-11, 20));
+            return random.nextBoolean() ? value : -value;
+        });
+    }
+
+    @Test
+    void decimalGrid() {
+        // Короткие десятичные дроби, в том числе с 9 знаками и пятёркой на
+        // конце, где округление зависит от кратчайшей записи
+        SplittableRandom random = new SplittableRandom(41);
+        run(SAMPLES, () -> {
+            int digits = random.nextInt(1, 11);
+            long units = random.nextLong(1, 1_000_000_000_000L);
+            if (random.nextBoolean()) {
+                units = units / 10 * 10 + 5;
+            }
+            double value = units / Math.pow(10, digits);
+            return random.nextBoolean() ? value : -value;
+        });
+    }
+
+    @Test
+    void neighboursOfDecimals() {
+        // Соседние double у коротких десятичных дробей
+        SplittableRandom random = new SplittableRandom(53);
+        run(SAMPLES, () -> {
+            double value = random.nextLong(1, 10_000_000_000L) / 1e9;
+            int steps = random.nextInt(-3, 4);
+            for (; steps > 0; steps--) {
+                value = Math.nextUp(value);
+            }
+            for (; steps < 0; steps++) {
+                value = Math.nextDown(value);
+            }
+            return value;
+        });
+    }
+
+    @Test
+    void largeValues() {
+        // Числа больше 2^63: случайные мантиссы, степени двойки и их соседи
+        SplittableRandom random = new SplittableRandom(67);
+        run(LARGE_SAMPLES, () -> {
+            long exponent = random.nextLong(1086, 2047);
+            long mantissa = switch (random.nextInt(3)) {
+                case 0 -> random.nextLong(1L << 52);
+                case 1 -> random.nextLong(4);
+                default -> (1L << 52) - 1 - random.nextLong(4);
+            };
+            double value = Double.longBitsToDouble(exponent << 52 | mantissa);
+            return random.nextBoolean() ? value : -value;
+        });
+    }
+
+    private static void run(int samples, DoubleSupplier values) {
+        for (int i = 0; i < samples; i++) {
+            check(values.getAsDouble());
+        }
+    }
+
+    private static void check(double value) {
+        String expected = legacy(value);
+        String input = Double.toString(value);
+
+        assertEquals(expected, NumberFormatter.format(value), input);
+
+        StringBuilder builder = new StringBuilder("x");
+        assertEquals("x" + expected, NumberFormatter.format(value, builder).toString(), input);
+
+        char[] buffer = new char[NumberFormatter.MAX_LENGTH + 3];
+        Arrays.fill(buffer, '#');
+        int length = NumberFormatter.format(value, buffer, 3);
+        assertEquals(expected, new String(buffer, 3, length), input);
+        assertEquals('#', buffer[2], input);
+
+        ByteBuffer bytes = ByteBuffer.allocate(NumberFormatter.MAX_LENGTH + 1).put((byte) 'x');
+        NumberFormatter.format(value, bytes).flip();
+        assertEquals("x" + expected, StandardCharsets.US_ASCII.decode(bytes).toString(), input);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.util;
+
+import com.example.expression.ExpressionDefinitions;
+import com.example.expression.ExpressionTokenizer;
+import com.example.expression.Token;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link TokenManager#toTokens()}: токены из элементов ввода совпадают с
+ * разбором строки {@link TokenManager#toExpression()}.
+ */
+class TokenManagerTest {
+
+    private static final ExpressionTokenizer TOKENIZER = new ExpressionTokenizer(
+            ExpressionDefinitions.FUNCTION_NAMES, ExpressionDefinitions.CONSTANT_NAMES);
+
+    /** Прежнее правило распознавания чисел. */
+    private static final Pattern NUMBER = Pattern.compile("\\d+(\\.\\d+)?");
+
+    /** Элементы ввода, как их добавляют кнопки калькулятора и вставка результата. */
+    private static final String[] PIECES = {
+            "0", "1", "7", "12", "3.5", "0.25", ".", "2.", "(", ")", ",", "+", "-", "*", "/", "^", "×", "÷",
+            "sin", "cos", "sqrt", "√", "max", "π", "pi", "e", "x", "y1", "_", "SIN", "Pi", "1e"
+    };
+
+    @Test
+    void isNumberMatchesPattern() {
+        TokenManager manager = new TokenManager();
+        SplittableRandom random = new SplittableRandom(31);
+        String alphabet = "0123456789..a- ";
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int n = random.nextInt(7); n > 0; n--) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String token = text.toString();
+            assertEquals(NUMBER.matcher(token).matches(), manager.isNumber(token), token);
+        }
+        assertTrue(manager.isNumber("007.50"));
+        assertFalse(manager.isNumber("1."));
+        assertFalse(manager.isNumber(".5"));
+        assertFalse(manager.isNumber("١٢"));
+    }
+
+    @Test
+    void tokensMatchTokenizer() {
+        SplittableRandom random = new SplittableRandom(32);
+        for (int i = 0; i < 100_000; i++) {
+            TokenManager manager = new TokenManager();
+            for (int n = random.nextInt(1, 10); n > 0; n--) {
+                manager.add(PIECES[random.nextInt(PIECES.length)]);
+            }
+            String expression = manager.toExpression();
+            List<String> expected;
+            try {
+                expected = describe(TOKENIZER.tokenize(expression));
+            } catch (IllegalArgumentException e) {
+                assertThrows(IllegalArgumentException.class, manager::toTokens, expression);
+                continue;
+            }
+            List<Token> tokens = manager.toTokens();
+            assertEquals(expected, describe(tokens), expression);
+            for (Token token : tokens) {
+                if (token.hasNumber()) {
+                    assertEquals(Double.parseDouble(token.getValue()), token.getNumber(), expression);
+                }
+            }
+        }
+    }
+
+    private static List<String> describe(List<Token> tokens) {
+        return tokens.stream()
+                .map(t -> t.getType() + " " + t.getValue() + " " + t.getStart() + ":" + t.getEnd())
+                .toList();
+    }
+}
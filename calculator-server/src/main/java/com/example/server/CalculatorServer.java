@@ -0,0 +1,131 @@
+package com.example.server;
+
+import com.example.expression.ExpressionCache;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Встроенный HTTP/JSON-сервис вычисления выражений.
+ * <p>
+ * Построен на {@code com.sun.net.httpserver} из JDK; каждый запрос
+ * обрабатывается в собственном виртуальном потоке. По умолчанию сервер
+ * слушает только loopback-интерфейс.
+ * </p>
+ *
+ * <h3>Точки входа:</h3>
+ * <ul>
+ *   <li>{@code POST /evaluate} — вычисление одного задания или массива
+ *       заданий (см. {@link EvaluateHandler});</li>
+ *   <li>{@code GET /stats} — счётчики запросов и статистика кэша выражений.</li>
+ * </ul>
+ *
+ * <h3>Запуск:</h3>
+ * <pre>
+ * CalculatorServer [--host АДРЕС] [--port ПОРТ]
+ * curl -d '{"expression":"x^2+1","variables":{"x":3}}' http://127.0.0.1:8080/evaluate
+ * </pre>
+ */
+public final class CalculatorServer {
+
+    /** Порт по умолчанию. */
+    static final int DEFAULT_PORT = 8080;
+
+    static {
+        // Сервер JDK пишет заголовки и тело ответа отдельно; с алгоритмом Нейгла
+        // и отложенным ACK клиента каждый ответ keep-alive ждёт ~40 мс
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private CalculatorServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Запускает сервер.
+     *
+     * @param address адрес и порт; порт 0 — любой свободный
+     * @return запущенный сервер
+     * @throws IOException если адрес занят или недоступен
+     */
+    public static CalculatorServer start(InetSocketAddress address) throws IOException {
+        HttpServer server = HttpServer.create(address, 0);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        EvaluateHandler evaluate = new EvaluateHandler();
+        server.createContext("/evaluate", evaluate);
+        server.createContext("/stats", exchange -> stats(exchange, evaluate));
+        server.setExecutor(executor);
+        server.start();
+        return new CalculatorServer(server, executor);
+    }
+
+    /**
+     * Возвращает адрес, на котором слушает сервер.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Останавливает сервер, дожидаясь завершения начатых запросов не дольше
+     * {@code delaySeconds} секунд.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.close();
+    }
+
+    private static void stats(HttpExchange exchange, EvaluateHandler evaluate) throws IOException {
+        try (exchange) {
+            ExpressionCache cache = ExpressionCache.shared();
+            String json = String.format("{\"requests\":%d,\"expressions\":%d,\"errors\":%d,"
+                            + "\"cache\":{\"size\":%d,\"capacity\":%d,\"hits\":%d,\"misses\":%d,\"evictions\":%d}}",
+                    evaluate.getRequestCount(), evaluate.getExpressionCount(), evaluate.getErrorCount(),
+                    cache.size(), cache.getCapacity(), cache.getHitCount(), cache.getMissCount(),
+                    cache.getEvictionCount());
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(bytes);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = InetAddress.getLoopbackAddress().getHostAddress();
+        int port = DEFAULT_PORT;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--host" -> host = args[++i];
+                    case "--port" -> port = Integer.parseInt(args[++i]);
+                    default -> throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Использование: CalculatorServer [--host АДРЕС] [--port ПОРТ]");
+            System.exit(2);
+        }
+
+        CalculatorServer server = start(new InetSocketAddress(host, port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+        InetSocketAddress address = server.getAddress();
+        System.out.printf("Сервер вычислений: http://%s:%d/evaluate%n",
+                address.getAddress().getHostAddress(), address.getPort());
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.server;
+
+import com.example.expression.CompiledExpression;
+import com.example.util.NumberFormatter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Обработчик {@code POST /evaluate}.
+ * <p>
+ * Тело запроса — одно задание или массив заданий вида
+ * {@code {"expression": "x^2 + y", "variables": {"x": 3, "y": 4}}}; поле
+ * {@code variables} необязательно. Ответ на одно задание:
+ * </p>
+ * <pre>
+ * {"result":13.0,"text":"13","nanos":2140}
+ * {"error":"Деление на ноль","type":"ArithmeticException","nanos":950}
+ * </pre>
+ * <p>
+ * {@code result} — значение ({@code null} для NaN и бесконечностей),
+ * {@code text} — оно же после {@link NumberFormatter}, {@code nanos} — время
+ * компиляции и вычисления задания. Ответ на массив —
+ * {@code {"results":[...],"nanos":...}} с результатами в порядке заданий и
+ * полным временем обработки запроса, включая разбор JSON. Ошибка в одном
+ * задании массива не мешает остальным.
+ * </p>
+ * <p>
+ * Выражения компилируются через общий
+ * {@link com.example.expression.ExpressionCache}. Внутри массива одинаковые
+ * выражения дополнительно берутся из локальной карты запроса, так что пакет
+ * из тысячи заданий с одним выражением обращается к общему кэшу один раз.
+ * Полное время обработки запроса в миллисекундах передаётся также в
+ * заголовке {@code Server-Timing}.
+ * </p>
+ */
+final class EvaluateHandler implements HttpHandler {
+
+    /** Наибольший размер тела запроса, байт. */
+    static final int MAX_BODY_BYTES = 16 * 1024 * 1024;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder expressions = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, error("Ожидается метод POST"), start);
+                return;
+            }
+            byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                send(exchange, 413, error(String.format("Тело запроса больше %d байт", MAX_BODY_BYTES)), start);
+                return;
+            }
+            requests.increment();
+
+            StringBuilder out = new StringBuilder();
+            try {
+                Object request = Json.parse(new String(body, StandardCharsets.UTF_8));
+                if (request instanceof List<?> items) {
+                    Map<String, CompiledExpression> compiled = new HashMap<>();
+                    out.append("{\"results\":[");
+                    for (int i = 0; i < items.size(); i++) {
+                        if (i > 0) {
+                            out.append(',');
+                        }
+                        long itemStart = System.nanoTime();
+                        expressions.increment();
+                        try {
+                            evaluate(Task.of(items.get(i)), compiled, out, itemStart);
+                        } catch (IllegalArgumentException e) {
+                            // Задание неверной формы — ошибка только этого задания
+                            appendError(out, e, itemStart);
+                        }
+                    }
+                    out.append("],\"nanos\":").append(System.nanoTime() - start).append('}');
+                } else {
+                    Task task = Task.of(request);
+                    expressions.increment();
+                    evaluate(task, null, out, start);
+                }
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, error(e.getMessage()), start);
+                return;
+            }
+            send(exchange, 200, out, start);
+        }
+    }
+
+    /**
+     * Вычисляет задание и дописывает его результат.
+     *
+     * @param compiled локальная карта выражений пакета или {@code null}
+     */
+    private void evaluate(Task task, Map<String, CompiledExpression> compiled, StringBuilder out, long start) {
+        try {
+            CompiledExpression expression = compiled != null
+                    ? compiled.computeIfAbsent(task.expression(), CompiledExpression::compile)
+                    : CompiledExpression.compile(task.expression());
+            double value = expression.evaluate(task.variables());
+            out.append("{\"result\":");
+            Json.number(out, value);
+            out.append(",\"text\":\"");
+            NumberFormatter.format(value, out);
+            out.append("\",\"nanos\":").append(System.nanoTime() - start).append('}');
+        } catch (RuntimeException e) {
+            appendError(out, e, start);
+        }
+    }
+
+    private void appendError(StringBuilder out, RuntimeException e, long start) {
+        errors.increment();
+        out.append("{\"error\":");
+        Json.quote(out, String.valueOf(e.getMessage()));
+        out.append(",\"type\":");
+        Json.quote(out, e.getClass().getSimpleName());
+        out.append(",\"nanos\":").append(System.nanoTime() - start).append('}');
+    }
+
+    private static StringBuilder error(String message) {
+        return Json.quote(new StringBuilder("{\"error\":"), message).append('}');
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence json, long start) throws IOException {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Server-Timing",
+                String.format(Locale.ROOT, "total;dur=%.3f", (System.nanoTime() - start) / 1e6));
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    /**
+     * Возвращает число принятых запросов.
+     */
+    long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Возвращает число принятых заданий, включая задания неверной формы
+     * внутри массивов.
+     */
+    long getExpressionCount() {
+        return expressions.sum();
+    }
+
+    /**
+     * Возвращает число заданий, завершившихся ошибкой.
+     */
+    long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * Задание: выражение и значения переменных.
+     */
+    private record Task(String expression, Map<String, Double> variables) {
+
+        /**
+         * Проверяет форму задания, разобранного из JSON.
+         *
+         * @throws IllegalArgumentException если задание неверной формы
+         */
+        static Task of(Object json) {
+            if (!(json instanceof Map<?, ?> object)) {
+                throw new IllegalArgumentException("Задание должно быть объектом");
+            }
+            if (!(object.get("expression") instanceof String expression)) {
+                throw new IllegalArgumentException("Поле expression должно быть строкой");
+            }
+            Object variables = object.get("variables");
+            if (variables == null) {
+                return new Task(expression, Map.of());
+            }
+            if (!(variables instanceof Map<?, ?> values)) {
+                throw new IllegalArgumentException("Поле variables должно быть объектом");
+            }
+            Map<String, Double> numbers = new HashMap<>(values.size() * 2);
+            for (Map.Entry<?, ?> entry : values.entrySet()) {
+                if (!(entry.getValue() instanceof Double value)) {
+                    throw new IllegalArgumentException(
+                            String.format("Значение переменной '%s' должно быть числом", entry.getKey()));
+                }
+                numbers.put((String) entry.getKey(), value);
+            }
+            return new Task(expression, numbers);
+        }
+    }
+}
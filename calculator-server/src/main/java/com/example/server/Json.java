@@ -0,0 +1,291 @@
+package com.example.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Минимальный разбор и запись JSON без внешних зависимостей.
+ * <p>
+ * Разбор превращает текст в объекты Java: объект — {@link Map} с порядком
+ * ключей, массив — {@link List}, строка — {@link String}, число —
+ * {@link Double}, {@code true}/{@code false} — {@link Boolean}, {@code null}
+ * — {@code null}. Глубина вложенности ограничена {@value #MAX_DEPTH}, чтобы
+ * враждебный запрос не переполнил стек.
+ * </p>
+ */
+final class Json {
+
+    /** Наибольшая глубина вложенности объектов и массивов. */
+    static final int MAX_DEPTH = 64;
+
+    private final String text;
+    private int position;
+    private int depth;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Разбирает JSON-документ.
+     *
+     * @param text текст документа
+     * @return значение верхнего уровня
+     * @throws IllegalArgumentException если текст не является корректным JSON
+     */
+    static Object parse(String text) {
+        Json parser = new Json(text);
+        Object value = parser.value();
+        parser.skipWhitespace();
+        if (parser.position < text.length()) {
+            throw parser.error("лишние символы после значения");
+        }
+        return value;
+    }
+
+    private Object value() {
+        skipWhitespace();
+        if (position >= text.length()) {
+            throw error("ожидается значение");
+        }
+        char c = text.charAt(position);
+        return switch (c) {
+            case '{' -> object();
+            case '[' -> array();
+            case '"' -> string();
+            case 't' -> literal("true", Boolean.TRUE);
+            case 'f' -> literal("false", Boolean.FALSE);
+            case 'n' -> literal("null", null);
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    yield number();
+                }
+                throw error("неожиданный символ '" + c + "'");
+            }
+        };
+    }
+
+    private Map<String, Object> object() {
+        enter();
+        position++;
+        Map<String, Object> object = new LinkedHashMap<>();
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            depth--;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("ожидается имя поля");
+            }
+            String name = string();
+            skipWhitespace();
+            expect(':');
+            object.put(name, value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                depth--;
+                return object;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        enter();
+        position++;
+        List<Object> array = new ArrayList<>();
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            depth--;
+            return array;
+        }
+        while (true) {
+            array.add(value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                depth--;
+                return array;
+            }
+        }
+    }
+
+    private String string() {
+        position++;
+        int start = position;
+        // Быстрый путь: строка без экранирования
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '"') {
+                return text.substring(start, position++);
+            }
+            if (c == '\\' || c < 0x20) {
+                break;
+            }
+            position++;
+        }
+
+        StringBuilder value = new StringBuilder().append(text, start, position);
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c < 0x20) {
+                position--;
+                throw error("управляющий символ в строке");
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position >= text.length()) {
+                break;
+            }
+            char escape = text.charAt(position++);
+            switch (escape) {
+                case '"', '\\', '/' -> value.append(escape);
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw error("неполная последовательность \\u");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text, position, position + 4, 16));
+                    } catch (NumberFormatException e) {
+                        throw error("некорректная последовательность \\u");
+                    }
+                    position += 4;
+                }
+                default -> {
+                    position--;
+                    throw error("некорректное экранирование '\\" + escape + "'");
+                }
+            }
+        }
+        throw error("незакрытая строка");
+    }
+
+    private Double number() {
+        int start = position;
+        if (peek() == '-') {
+            position++;
+        }
+        if (peek() == '0') {
+            position++;
+        } else if (!digits()) {
+            throw error("ожидается цифра");
+        }
+        if (peek() == '.') {
+            position++;
+            if (!digits()) {
+                throw error("ожидается цифра после точки");
+            }
+        }
+        if (peek() == 'e' || peek() == 'E') {
+            position++;
+            if (peek() == '+' || peek() == '-') {
+                position++;
+            }
+            if (!digits()) {
+                throw error("ожидается цифра в показателе степени");
+            }
+        }
+        return Double.parseDouble(text.substring(start, position));
+    }
+
+    private boolean digits() {
+        int start = position;
+        while (position < text.length() && text.charAt(position) >= '0' && text.charAt(position) <= '9') {
+            position++;
+        }
+        return position > start;
+    }
+
+    private Object literal(String word, Object value) {
+        if (!text.startsWith(word, position)) {
+            throw error("ожидается " + word);
+        }
+        position += word.length();
+        return value;
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw error("вложенность больше " + MAX_DEPTH);
+        }
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("ожидается '" + c + "'");
+        }
+        position++;
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : '\0';
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(
+                String.format("Некорректный JSON в позиции %d: %s", position, message));
+    }
+
+    /**
+     * Дописывает строку в кавычках, экранируя спецсимволы.
+     */
+    static StringBuilder quote(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Дописывает число; {@code NaN} и бесконечности, которых нет в JSON,
+     * записываются как {@code null}.
+     */
+    static StringBuilder number(StringBuilder out, double value) {
+        return Double.isFinite(value) ? out.append(value) : out.append("null");
+    }
+}
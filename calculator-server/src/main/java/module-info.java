@@ -0,0 +1,7 @@
+/**
+ * Локальный HTTP/JSON-сервис вычисления выражений.
+ */
+module com.example.server {
+    requires com.example.core;
+    requires jdk.httpserver;
+}